@@ -0,0 +1,47 @@
+package org.davidmoten.hilbert;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * The cells within a Euclidean distance of a center cell (distances are
+ * measured between ordinates). A box of cells is outside the ball if its
+ * nearest point to the center is further than the radius and inside if its
+ * furthest corner is no further than the radius. For a single cell both
+ * distances are the same so the classification is exact.
+ */
+final class Ball implements Region {
+
+    private final long[] center;
+    private final double radiusSquared;
+
+    Ball(long[] center, double radius) {
+        Preconditions.checkArgument(radius >= 0, "radius cannot be negative");
+        this.center = center;
+        this.radiusSquared = radius * radius;
+    }
+
+    @Override
+    public Relation relate(long[] mins, long[] maxes) {
+        double nearest = 0;
+        double furthest = 0;
+        for (int i = 0; i < center.length; i++) {
+            double c = center[i];
+            double low = mins[i] - c;
+            double high = maxes[i] - c;
+            if (low > 0) {
+                nearest += low * low;
+            } else if (high < 0) {
+                nearest += high * high;
+            }
+            furthest += Math.max(low * low, high * high);
+        }
+        if (nearest > radiusSquared) {
+            return Relation.OUTSIDE;
+        } else if (furthest <= radiusSquared) {
+            return Relation.INSIDE;
+        } else {
+            return Relation.PARTIAL;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Word-parallel transpose of a 64 x 64 bit matrix held as 64 {@code long}
+ * rows (bit c of row r is the element at column c). Used to move bits between
+ * the transposed form of a Hilbert index and the interleaved index when there
+ * are many dimensions (each dimension then contributes only one bit to a word
+ * so moving bits per dimension is no better than moving them one at a time).
+ *
+ * <p>
+ * The transpose is done in rounds j = 32, 16, ..., 1. Round j moves each
+ * element to the position with bit j of its row index exchanged with bit j of
+ * its column index, so it is 32 masked swaps of rows j apart. The rounds act
+ * on different bits so commute. When the columns at and above a power of two
+ * width w are known to be zero the rounds j &gt;= w just merge row k + j into
+ * row k (or split it out for the inverse) and only the w rows that end up
+ * occupied need the remaining swaps, which makes narrow matrices (few bits per
+ * dimension) much cheaper than a full transpose.
+ */
+final class BitMatrix {
+
+    private BitMatrix() {
+        // prevent instantiation
+    }
+
+    /**
+     * Transposes the matrix in place so that afterwards bit c of {@code a[r]} is
+     * what was bit r of {@code a[c]}.
+     *
+     * @param a
+     *            the 64 rows of the matrix
+     */
+    static void transpose(long[] a) {
+        swaps(a, 64);
+    }
+
+    /**
+     * Transposes a matrix of 64 rows whose columns {@code width} and above are
+     * zero. Afterwards bit c of {@code a[r]} for r &lt; width is what was bit r
+     * of {@code a[c]}. Rows {@code width} and above are left undefined.
+     *
+     * @param a
+     *            the 64 rows of the matrix
+     * @param width
+     *            a power of two from 1 to 64
+     */
+    static void transposeNarrow(long[] a, int width) {
+        for (int j = 32; j >= width; j >>>= 1) {
+            for (int k = 0; k < j; k++) {
+                a[k] |= a[k + j] << j;
+            }
+        }
+        swaps(a, width);
+    }
+
+    /**
+     * The inverse of {@link #transposeNarrow(long[], int)}. Transposes a matrix
+     * whose rows {@code height} and above are zero (they are not read).
+     * Afterwards bit c of {@code a[r]} is what was bit r of {@code a[c]} and the
+     * columns {@code height} and above are zero.
+     *
+     * @param a
+     *            the 64 rows of the matrix
+     * @param height
+     *            a power of two from 1 to 64
+     */
+    static void transposeToNarrow(long[] a, int height) {
+        swaps(a, height);
+        for (int j = height; j < 64; j <<= 1) {
+            // columns with bit j clear
+            long m = mask(j);
+            for (int k = 0; k < j; k++) {
+                a[k + j] = (a[k] >>> j) & m;
+                a[k] &= m;
+            }
+        }
+    }
+
+    // rounds j < n on rows 0 to n - 1
+    private static void swaps(long[] a, int n) {
+        for (int j = n >>> 1; j != 0; j >>>= 1) {
+            long m = mask(j);
+            for (int k = 0; k < n; k = ((k | j) + 1) & ~j) {
+                // swap the high columns of row k with the low columns of row
+                // k + j within each block of 2j columns
+                long t = ((a[k] >>> j) ^ a[k | j]) & m;
+                a[k | j] ^= t;
+                a[k] ^= t << j;
+            }
+        }
+    }
+
+    // j ones then j zeros repeated from bit 0 (j a power of two below 64)
+    private static long mask(int j) {
+        long m = 0x00000000FFFFFFFFL;
+        for (int i = 32; i > j; i >>>= 1) {
+            m ^= m << (i >>> 1);
+        }
+        return m;
+    }
+
+}
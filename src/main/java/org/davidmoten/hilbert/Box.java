@@ -1,20 +1,38 @@
 package org.davidmoten.hilbert;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 
 import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 
-final class Box {
+final class Box implements Region {
 
     final long[] a;
     final long[] b;
+    private final long[] mins;
+    private final long[] maxes;
 
     Box(long[] a, long[] b) {
         Preconditions.checkArgument(a.length == b.length);
         this.a = a;
         this.b = b;
+        this.mins = mins(a, b);
+        this.maxes = maxes(a, b);
+    }
+
+    @Override
+    public Relation relate(long[] boxMins, long[] boxMaxes) {
+        boolean inside = true;
+        for (int i = 0; i < mins.length; i++) {
+            if (boxMaxes[i] < mins[i] || boxMins[i] > maxes[i]) {
+                return Relation.OUTSIDE;
+            }
+            inside &= mins[i] <= boxMins[i] && boxMaxes[i] <= maxes[i];
+        }
+        return inside ? Relation.INSIDE : Relation.PARTIAL;
     }
 
     int dimensions() {
@@ -58,6 +76,83 @@ final class Box {
         }
     }
 
+    /**
+     * Returns the faces of the perimeter as boxes. The faces are disjoint and
+     * together hold exactly the cells visited by
+     * {@link #visitPerimeter(Consumer)}: for each special index i from the last
+     * dimension down the face at the minimum and the face at the maximum of
+     * dimension i span the whole box in the dimensions before i and only the
+     * interior of the box in the dimensions after i.
+     *
+     * @return faces of the perimeter
+     */
+    List<Box> perimeterFaces() {
+        List<Box> faces = new ArrayList<>();
+        for (int specialIndex = dimensions() - 1; specialIndex >= 0; specialIndex--) {
+            long[] lo = Arrays.copyOf(mins, mins.length);
+            long[] hi = Arrays.copyOf(maxes, maxes.length);
+            for (int i = specialIndex + 1; i < lo.length; i++) {
+                if (mins[i] >= maxes[i] - 1) {
+                    // no interior so no further faces
+                    return faces;
+                }
+                lo[i] = mins[i] + 1;
+                hi[i] = maxes[i] - 1;
+            }
+            hi[specialIndex] = mins[specialIndex];
+            faces.add(new Box(lo, hi));
+            if (mins[specialIndex] != maxes[specialIndex]) {
+                long[] lo2 = Arrays.copyOf(lo, lo.length);
+                long[] hi2 = Arrays.copyOf(hi, hi.length);
+                lo2[specialIndex] = maxes[specialIndex];
+                hi2[specialIndex] = maxes[specialIndex];
+                faces.add(new Box(lo2, hi2));
+            } else {
+                break;
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * Returns the number of cells in the box or {@code Long.MAX_VALUE} if that
+     * number does not fit in a long.
+     *
+     * @return number of cells
+     */
+    long volume() {
+        long v = 1;
+        for (int i = 0; i < mins.length; i++) {
+            long side = maxes[i] - mins[i] + 1;
+            if (v > Long.MAX_VALUE / side) {
+                return Long.MAX_VALUE;
+            }
+            v *= side;
+        }
+        return v;
+    }
+
+    /**
+     * Splits the box in half across its longest side. The box must have more
+     * than one cell.
+     *
+     * @return the two halves, the lower half first
+     */
+    Box[] split() {
+        int longest = 0;
+        for (int i = 1; i < mins.length; i++) {
+            if (maxes[i] - mins[i] > maxes[longest] - mins[longest]) {
+                longest = i;
+            }
+        }
+        long middle = mins[longest] + (maxes[longest] - mins[longest]) / 2;
+        long[] hi = Arrays.copyOf(maxes, maxes.length);
+        hi[longest] = middle;
+        long[] lo = Arrays.copyOf(mins, mins.length);
+        lo[longest] = middle + 1;
+        return new Box[] { new Box(mins, hi), new Box(lo, maxes) };
+    }
+
     @VisibleForTesting
     static void visitPerimeter(long[] mins, long[] maxes, long[] x, int specialIndex,
             Consumer<? super long[]> visitor) {
@@ -0,0 +1,289 @@
+package org.davidmoten.hilbert;
+
+import java.util.Arrays;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A compact Hilbert curve (Hamilton and Rau-Chaplin, "Compact Hilbert indices
+ * for multi-dimensional data", 2007) where each dimension has its own number
+ * of bits. The index of a point is its rank in the Hilbert order of the
+ * {@code max(bits)} curve restricted to the grid, so the index has
+ * {@code sum(bits)} bits rather than {@code max(bits) * dimensions} bits. When
+ * all dimensions have the same number of bits the index is the same as the
+ * {@link SmallHilbertCurve} index.
+ *
+ * <p>
+ * The index is built from the most significant level as for the full curve
+ * but a level only contributes one bit for each dimension that has a bit at
+ * that level (see {@link HilbertState#encodeCompact(long, long)}).
+ *
+ * <p>
+ * Unlike the full curve, consecutive indexes need not be adjacent cells (the
+ * full curve can leave the grid between them) so the perimeter algorithm does
+ * not apply and queries instead descend the tree of sub-cubes, emitting each
+ * sub-cube inside the box as one range.
+ */
+public final class CompactHilbertCurve {
+
+    private final int[] bits;
+    private final int dimensions;
+    // maximum number of bits of any dimension (the number of levels)
+    private final int levels;
+    // active[level]: bit j set if dimension j has a bit at the level
+    private final long[] active;
+    // below[level]: number of index bits contributed by the levels below level
+    private final int[] below;
+    private final int length;
+
+    private CompactHilbertCurve(int[] bits) {
+        this.bits = bits;
+        this.dimensions = bits.length;
+        int max = 0;
+        int sum = 0;
+        for (int b : bits) {
+            max = Math.max(max, b);
+            sum += b;
+        }
+        this.levels = max;
+        this.length = sum;
+        this.active = new long[levels];
+        this.below = new int[levels];
+        int count = 0;
+        for (int level = 0; level < levels; level++) {
+            below[level] = count;
+            for (int j = 0; j < dimensions; j++) {
+                if (bits[j] > level) {
+                    active[level] |= 1L << j;
+                    count++;
+                }
+            }
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the number of bits of the given dimension.
+     *
+     * @param dimension
+     *            dimension from 0
+     * @return bits of the dimension
+     */
+    public int bits(int dimension) {
+        return bits[dimension];
+    }
+
+    public long maxOrdinate(int dimension) {
+        return (1L << bits[dimension]) - 1;
+    }
+
+    public long maxIndex() {
+        return (1L << length) - 1;
+    }
+
+    /**
+     * Converts a point to its compact Hilbert index.
+     *
+     * @param point
+     *            ordinates, ordinate j between 0 and {@code maxOrdinate(j)}
+     * @return index between 0 and {@link #maxIndex()}
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions
+     */
+    public long index(long... point) {
+        Preconditions.checkArgument(point.length == dimensions);
+        HilbertState state = new HilbertState(dimensions);
+        long index = 0;
+        for (int level = levels - 1; level >= 0; level--) {
+            long raw = 0;
+            for (int j = 0; j < dimensions; j++) {
+                raw |= ((point[j] >>> level) & 1) << j;
+            }
+            int n = Long.bitCount(active[level]);
+            index = (index << n) | state.encodeCompact(raw, active[level]);
+        }
+        return index;
+    }
+
+    /**
+     * Converts a compact Hilbert index to a point.
+     *
+     * @param index
+     *            index between 0 and {@link #maxIndex()}
+     * @return the point
+     */
+    public long[] point(long index) {
+        long[] x = new long[dimensions];
+        point(index, x);
+        return x;
+    }
+
+    /**
+     * Converts a compact Hilbert index to a point, writing the ordinates to
+     * {@code x}.
+     *
+     * @param index
+     *            index between 0 and {@link #maxIndex()}
+     * @param x
+     *            receives the ordinates of the point
+     * @throws IllegalArgumentException
+     *             if length of x is not equal to the number of dimensions
+     */
+    public void point(long index, long[] x) {
+        Preconditions.checkArgument(x.length == dimensions);
+        Arrays.fill(x, 0);
+        HilbertState state = new HilbertState(dimensions);
+        for (int level = levels - 1; level >= 0; level--) {
+            int n = Long.bitCount(active[level]);
+            long compact = (index >>> below[level]) & ((1L << n) - 1);
+            long raw = state.decodeCompact(compact, active[level]);
+            for (int j = 0; j < dimensions; j++) {
+                x[j] |= ((raw >>> j) & 1) << level;
+            }
+        }
+    }
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}. The list will be in increasing order of the range bounds (there
+     * should be no overlaps).
+     *
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public Ranges query(long[] a, long[] b) {
+        return query(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and
+     * {@code b}. The list will be in increasing order of the range bounds (there
+     * should be no overlaps). If there are more than {@code maxRanges} exact
+     * ranges then ranges with minimal gaps are joined.
+     *
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all
+     *            ranges are returned.
+     * @return ranges
+     */
+    public Ranges query(long[] a, long[] b, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        Query q = new Query(a, b);
+        q.descend(levels - 1, new HilbertState(dimensions), 0, new long[dimensions]);
+        q.flush();
+        Ranges ranges = q.ranges;
+        if (maxRanges == 0 || ranges.size() <= maxRanges) {
+            return ranges;
+        } else {
+            Ranges r = new Ranges(maxRanges);
+            for (Range range : ranges) {
+                r.add(range);
+            }
+            return r;
+        }
+    }
+
+    private final class Query {
+        private final long[] mins = new long[dimensions];
+        private final long[] maxes = new long[dimensions];
+        final Ranges ranges = new Ranges(0);
+        // adjacent ranges are joined before being added
+        private long start = -1;
+        private long end = -1;
+
+        Query(long[] a, long[] b) {
+            for (int j = 0; j < dimensions; j++) {
+                mins[j] = Math.min(a[j], b[j]);
+                maxes[j] = Math.max(a[j], b[j]);
+            }
+        }
+
+        // visits the sub-cube whose levels above level are decided (low holds
+        // their bits and prefix the index bits so far), children in index order
+        void descend(int level, HilbertState state, long prefix, long[] low) {
+            boolean inside = true;
+            for (int j = 0; j < dimensions; j++) {
+                long high = low[j] + (1L << Math.min(level + 1, bits[j])) - 1;
+                if (high < mins[j] || low[j] > maxes[j]) {
+                    return;
+                }
+                inside &= mins[j] <= low[j] && high <= maxes[j];
+            }
+            int rest = level < 0 ? 0 : below[level] + Long.bitCount(active[level]);
+            if (inside) {
+                add(prefix << rest, ((prefix + 1) << rest) - 1);
+                return;
+            }
+            int n = Long.bitCount(active[level]);
+            long[] childLow = new long[dimensions];
+            HilbertState child = state.copy();
+            for (long k = 0; k < 1L << n; k++) {
+                child.copyFrom(state);
+                long raw = child.decodeCompact(k, active[level]);
+                for (int j = 0; j < dimensions; j++) {
+                    childLow[j] = low[j] | (((raw >>> j) & 1) << level);
+                }
+                descend(level - 1, child, (prefix << n) | k, childLow);
+            }
+        }
+
+        private void add(long low, long high) {
+            if (start != -1 && end + 1 == low) {
+                end = high;
+            } else {
+                flush();
+                start = low;
+                end = high;
+            }
+        }
+
+        void flush() {
+            if (start != -1) {
+                ranges.add(start, end);
+                start = -1;
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        Builder() {
+            // private instantiation
+        }
+
+        /**
+         * Returns a curve with the given number of bits for each dimension.
+         *
+         * @param bits
+         *            bits of each dimension (from 1 to 63)
+         * @return curve
+         * @throws IllegalArgumentException
+         *             if there are less than 2 dimensions or the total number of
+         *             bits is more than 63
+         */
+        public CompactHilbertCurve bits(int... bits) {
+            Preconditions.checkArgument(bits.length > 1, "dimensions must be at least 2");
+            int sum = 0;
+            for (int b : bits) {
+                Preconditions.checkArgument(b > 0, "bits must be greater than zero");
+                sum += b;
+            }
+            Preconditions.checkArgument(sum <= 63, "total bits must be less than or equal to 63");
+            return new CompactHilbertCurve(bits.clone());
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.davidmoten.hilbert;
+
+import java.util.Comparator;
+
+/**
+ * Compares points in Hilbert order without computing their indexes. The
+ * levels (bits) of the two points are walked from the most significant and the
+ * comparison stops at the first level where the points differ, so points that
+ * are far apart are resolved after a few levels. See
+ * {@link HilbertCurve#comparator()}. The working state is held per thread so
+ * a comparison does not allocate. Above {@link HilbertState#MAX_DIMENSIONS}
+ * dimensions the full indexes of both points are computed (into per thread
+ * buffers) for every comparison.
+ */
+final class HilbertComparator implements Comparator<long[]> {
+
+    private final HilbertCurve curve;
+    private final int bits;
+    private final int dimensions;
+    // null unless 2 or 3 dimensions
+    private final StateTables tables;
+    // only read (digit does not move the state) so can be shared by threads
+    private final HilbertState initial;
+    private final ThreadLocal<Scratch> scratch;
+
+    HilbertComparator(HilbertCurve curve, int bits, int dimensions) {
+        this.curve = curve;
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.tables = StateTables.forDimensions(dimensions);
+        this.initial = dimensions <= HilbertState.MAX_DIMENSIONS ? new HilbertState(dimensions) : null;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(dimensions, curve.words()));
+    }
+
+    @Override
+    public int compare(long[] a, long[] b) {
+        return compare(a, 0, b, 0);
+    }
+
+    int compare(long[] a, int aOffset, long[] b, int bOffset) {
+        if (tables != null) {
+            return tables.compare(bits, a, aOffset, b, bOffset);
+        } else if (dimensions > HilbertState.MAX_DIMENSIONS) {
+            // compare the full indexes
+            Scratch sc = scratch.get();
+            System.arraycopy(a, aOffset, sc.point, 0, dimensions);
+            curve.index(sc.point, sc.transposed, sc.x);
+            System.arraycopy(b, bOffset, sc.point, 0, dimensions);
+            curve.index(sc.point, sc.transposed, sc.y);
+            // most significant word first
+            for (int w = 0; w < sc.x.length; w++) {
+                int c = Long.compareUnsigned(sc.x[w], sc.y[w]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+        // levels above the highest differing bit are the same for both points
+        // but still move the state
+        long diff = 0;
+        for (int i = 0; i < dimensions; i++) {
+            diff |= a[aOffset + i] ^ b[bOffset + i];
+        }
+        if (diff == 0) {
+            return 0;
+        }
+        int top = 63 - Long.numberOfLeadingZeros(diff);
+        if (top == bits - 1) {
+            // the common case for points far apart
+            return Long.compare(initial.digit(raw(a, aOffset, top)), initial.digit(raw(b, bOffset, top)));
+        }
+        HilbertState state = scratch.get().state;
+        state.copyFrom(initial);
+        for (int level = bits - 1; level > top; level--) {
+            state.encode(raw(a, aOffset, level));
+        }
+        return Long.compare(state.digit(raw(a, aOffset, top)), state.digit(raw(b, bOffset, top)));
+    }
+
+    // bit i is the bit of dimension i at the level
+    private long raw(long[] point, int offset, int level) {
+        long raw = 0;
+        for (int i = 0; i < dimensions; i++) {
+            raw |= ((point[offset + i] >>> level) & 1) << i;
+        }
+        return raw;
+    }
+
+    private static final class Scratch {
+        final HilbertState state;
+        final long[] point;
+        final long[] transposed;
+        final long[] x;
+        final long[] y;
+
+        Scratch(int dimensions, int words) {
+            this.state = dimensions <= HilbertState.MAX_DIMENSIONS ? new HilbertState(dimensions) : null;
+            this.point = new long[dimensions];
+            this.transposed = new long[dimensions];
+            this.x = new long[words];
+            this.y = new long[words];
+        }
+    }
+
+}
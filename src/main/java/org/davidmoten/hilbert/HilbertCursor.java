@@ -0,0 +1,171 @@
+package org.davidmoten.hilbert;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A position on a {@link SmallHilbertCurve} that can be moved one step forward
+ * or backward along the curve without decoding the whole index again. Created
+ * by {@link SmallHilbertCurve#cursor(long)}.
+ * 
+ * <p>
+ * The orientation of the curve in the sub-cube entered at each level (see
+ * {@link HilbertState}) is kept so a step only decodes the levels whose digit
+ * of the index changed. Only the lowest level changes for all but one in
+ * 2<sup>dimensions</sup> steps so a step costs amortized O(1) levels.
+ * 
+ * <p>
+ * Example of scanning the cells of a range:
+ * 
+ * <pre>
+ * HilbertCursor cursor = curve.cursor(range.low());
+ * do {
+ *     long[] point = cursor.point();
+ *     ...
+ * } while (cursor.index() &lt; range.high() &amp;&amp; cursor.next());
+ * </pre>
+ */
+// NotThreadSafe
+public final class HilbertCursor {
+
+    private final int bits;
+    private final int dimensions;
+    private final long maxIndex;
+    private final long digitMask;
+    // null unless 2 or 3 dimensions
+    private final StateTables tables;
+    // tableStates[l] is the state of the curve entering level l (0 is the most
+    // significant level), used with tables
+    private final int[] tableStates;
+    // as tableStates but used without tables
+    private final HilbertState[] states;
+    private final long[] point;
+    private long index;
+
+    HilbertCursor(int bits, int dimensions, StateTables tables, long index) {
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.maxIndex = bits * dimensions == 0 ? 0 : (1L << (bits * dimensions)) - 1;
+        this.digitMask = (1L << dimensions) - 1;
+        this.tables = tables;
+        if (tables != null) {
+            this.tableStates = new int[bits + 1];
+            this.states = null;
+        } else {
+            this.tableStates = null;
+            this.states = new HilbertState[bits + 1];
+            for (int level = 0; level <= bits; level++) {
+                states[level] = new HilbertState(dimensions);
+            }
+        }
+        this.point = new long[dimensions];
+        moveTo(index);
+    }
+
+    /**
+     * Moves the cursor to the given index (decodes all levels).
+     * 
+     * @param index
+     *            index along the curve
+     * @throws IllegalArgumentException
+     *             if index is negative or greater than the maximum index
+     */
+    public void moveTo(long index) {
+        Preconditions.checkArgument(index >= 0 && index <= maxIndex, "index out of range");
+        this.index = index;
+        decodeFrom(0);
+    }
+
+    /**
+     * Moves the cursor to the next index along the curve (the neighbouring cell
+     * of the current point).
+     * 
+     * @return false (without moving) if already at the last index
+     */
+    public boolean next() {
+        if (index == maxIndex) {
+            return false;
+        }
+        long previous = index;
+        index++;
+        decodeFrom(highestChangedLevel(previous ^ index));
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the previous index along the curve.
+     * 
+     * @return false (without moving) if already at index 0
+     */
+    public boolean previous() {
+        if (index == 0) {
+            return false;
+        }
+        long previous = index;
+        index--;
+        decodeFrom(highestChangedLevel(previous ^ index));
+        return true;
+    }
+
+    public long index() {
+        return index;
+    }
+
+    /**
+     * Returns a copy of the current point.
+     * 
+     * @return current point
+     */
+    public long[] point() {
+        return point.clone();
+    }
+
+    /**
+     * Copies the current point into {@code x} without allocating.
+     * 
+     * @param x
+     *            receives the ordinates, length at least dimensions
+     */
+    public void point(long[] x) {
+        System.arraycopy(point, 0, x, 0, dimensions);
+    }
+
+    /**
+     * Returns the ordinate of the current point in the given dimension.
+     * 
+     * @param dimension
+     *            dimension from 0
+     * @return ordinate
+     */
+    public long ordinate(int dimension) {
+        return point[dimension];
+    }
+
+    // level (0 is most significant) of the most significant changed digit
+    private int highestChangedLevel(long changedBits) {
+        int position = 63 - Long.numberOfLeadingZeros(changedBits);
+        return bits - 1 - position / dimensions;
+    }
+
+    private void decodeFrom(int level) {
+        for (int l = level; l < bits; l++) {
+            int shift = bits - 1 - l;
+            long digit = (index >>> (shift * dimensions)) & digitMask;
+            long bit = 1L << shift;
+            if (tables != null) {
+                int entry = tables.decodeLevel(tableStates[l], (int) digit);
+                tableStates[l + 1] = entry >>> dimensions;
+                for (int i = 0; i < dimensions; i++) {
+                    point[i] = (point[i] & ~bit) | ((((long) entry >>> (dimensions - 1 - i)) & 1) << shift);
+                }
+            } else {
+                HilbertState state = states[l + 1];
+                state.copyFrom(states[l]);
+                long raw = state.decode(digit);
+                for (int i = 0; i < dimensions; i++) {
+                    point[i] = (point[i] & ~bit) | (((raw >>> i) & 1) << shift);
+                }
+            }
+        }
+    }
+
+}
@@ -1,7 +1,10 @@
 package org.davidmoten.hilbert;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
@@ -22,12 +25,20 @@ public final class HilbertCurve {
     private final int dimensions;
     // cached calculations
     private final int length;
+    private final WordInterleaving interleaving;
+    // used for the conversions if the index fits in a long (null otherwise)
+    private final SmallHilbertCurve small;
+
+    private final HilbertComparator comparator;
 
     private HilbertCurve(int bits, int dimensions) {
         this.bits = bits;
         this.dimensions = dimensions;
         // cache a calculated values for small perf improvements
         this.length = bits * dimensions;
+        this.interleaving = new WordInterleaving(bits, dimensions);
+        this.small = length <= 63 ? small().bits(bits).dimensions(dimensions) : null;
+        this.comparator = new HilbertComparator(this, bits, dimensions);
     }
 
     /**
@@ -47,6 +58,46 @@ public final class HilbertCurve {
         return new SmallHilbertCurve.Builder();
     }
 
+    /**
+     * Returns a builder for a Hilbert curve with {@code int} ordinates and an
+     * {@code int} index ({@code bits * dimensions <= 31}).
+     * 
+     * @return builder
+     */
+    public static TinyHilbertCurve.Builder tiny() {
+        return new TinyHilbertCurve.Builder();
+    }
+
+    /**
+     * Returns a builder for a Hilbert curve with an index of up to 128 bits held
+     * in two {@code long}s ({@code bits * dimensions <= 128}).
+     * 
+     * @return builder
+     */
+    public static MediumHilbertCurve.Builder medium() {
+        return new MediumHilbertCurve.Builder();
+    }
+
+    /**
+     * Returns a builder for a compact Hilbert curve where each dimension has its
+     * own number of bits (the total must be at most 63).
+     * 
+     * @return builder
+     */
+    public static CompactHilbertCurve.Builder compact() {
+        return new CompactHilbertCurve.Builder();
+    }
+
+    /**
+     * Returns a builder for a {@link SpaceFillingCurve} backed by the fastest
+     * implementation for the number of bits and dimensions.
+     * 
+     * @return builder
+     */
+    public static SpaceFillingCurve.Builder auto() {
+        return new SpaceFillingCurve.Builder();
+    }
+
     /**
      * Builds a {@link HilbertCurve} instance.
      */
@@ -78,9 +129,173 @@ public final class HilbertCurve {
      */
     public BigInteger index(long... point) {
         Preconditions.checkArgument(point.length == dimensions);
+        if (small != null) {
+            return BigInteger.valueOf(small.index(point));
+        }
         return toIndex(transposedIndex(bits, point));
     }
 
+    /**
+     * Converts a point to its Hilbert curve index as a {@code long}. Only
+     * available when {@code bits * dimensions <= 63} (see {@link #fitsInLong()}).
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @return index in the range 0 to 2<sup>bits * dimensions</sup> - 1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions.
+     * @throws IllegalStateException
+     *             if {@code bits * dimensions > 63}
+     */
+    public long indexAsLong(long... point) {
+        if (small == null) {
+            throw new IllegalStateException("index does not fit in a long, bits * dimensions must be 63 or less");
+        }
+        return small.index(point);
+    }
+
+    /**
+     * Returns true if and only if the index fits in a {@code long}
+     * ({@code bits * dimensions <= 63}) in which case the {@code long} based
+     * methods do not use {@code BigInteger}.
+     * 
+     * @return true if the index fits in a long
+     */
+    public boolean fitsInLong() {
+        return small != null;
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index without allocating. The index is
+     * written in big-endian order to {@code index} which must have length
+     * ceil(bits * dimensions / 8). {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @param index
+     *            receives the index as big-endian unsigned bytes
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions or the other arrays have the wrong length
+     */
+    public void index(long[] point, long[] scratch, byte[] index) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(scratch.length >= dimensions, "scratch must have length at least dimensions");
+        Preconditions.checkArgument(index.length == bytes(), "index must have length ceil(bits * dimensions / 8)");
+        if (small != null) {
+            long v = small.index(point, scratch);
+            for (int i = index.length - 1; i >= 0; i--) {
+                index[i] = (byte) v;
+                v >>>= 8;
+            }
+            return;
+        }
+        System.arraycopy(point, 0, scratch, 0, dimensions);
+        axesToTranspose(bits, scratch, dimensions);
+        interleaving.interleave(scratch, index);
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index without allocating. The index is
+     * written to {@code index} as {@link #words()} unsigned {@code long} words,
+     * most significant word first. {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @param index
+     *            receives the words of the index
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions or the other arrays have the wrong length
+     */
+    public void index(long[] point, long[] scratch, long[] index) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(scratch.length >= dimensions, "scratch must have length at least dimensions");
+        Preconditions.checkArgument(index.length == words(), "index must have length ceil(bits * dimensions / 64)");
+        if (small != null) {
+            index[0] = small.index(point, scratch);
+            return;
+        }
+        System.arraycopy(point, 0, scratch, 0, dimensions);
+        axesToTranspose(bits, scratch, dimensions);
+        interleaving.interleave(scratch, index);
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index as a {@link WideIndex} (no
+     * {@code BigInteger} is involved).
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @return index
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions.
+     */
+    public WideIndex wideIndex(long... point) {
+        Preconditions.checkArgument(point.length == dimensions);
+        long[] index = new long[words()];
+        if (small != null) {
+            index[0] = small.index(point);
+        } else {
+            interleaving.interleave(transposedIndex(bits, point), index);
+        }
+        return WideIndex.wrap(index);
+    }
+
+    /**
+     * Returns a comparator that orders points by their Hilbert index without
+     * computing the indexes. The levels (bits) of the two points are compared
+     * from the most significant and the comparison stops at the first level
+     * where they differ so sorting points into Hilbert order avoids building a
+     * {@code BigInteger} per point. Thread-safe.
+     * 
+     * @return comparator in Hilbert order
+     */
+    public Comparator<long[]> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Compares two points in Hilbert order without computing their indexes (see
+     * {@link #comparator()}). The points are read from arrays at the given
+     * offsets so points stored consecutively in a flat array can be compared
+     * without copying.
+     * 
+     * @param a
+     *            holds the ordinates of the first point from a[aOffset]
+     * @param aOffset
+     *            position of the first ordinate of the first point
+     * @param b
+     *            holds the ordinates of the second point from b[bOffset]
+     * @param bOffset
+     *            position of the first ordinate of the second point
+     * @return negative, zero or positive as the index of the first point is
+     *         less than, equal to or greater than the index of the second
+     */
+    public int compare(long[] a, int aOffset, long[] b, int bOffset) {
+        return comparator.compare(a, aOffset, b, bOffset);
+    }
+
+    /**
+     * Returns the number of {@code long} words used to hold an index
+     * (ceil(bits * dimensions / 64)).
+     * 
+     * @return number of words
+     */
+    public int words() {
+        return interleaving.words();
+    }
+
     /**
      * Converts a {@link BigInteger} index (distance along the Hilbert Curve from 0)
      * to a point of dimensions defined in the constructor of {@code this}.
@@ -97,19 +312,68 @@ public final class HilbertCurve {
     public long[] point(BigInteger index) {
         Preconditions.checkNotNull(index);
         Preconditions.checkArgument(index.signum() != -1, "index cannot be negative");
+        if (small != null && index.bitLength() <= 63) {
+            return small.point(index.longValue());
+        }
         return transposedIndexToPoint(bits, transpose(index));
     }
 
     public void point(BigInteger index, long[] x) {
         Preconditions.checkNotNull(index);
         Preconditions.checkArgument(index.signum() != -1, "index cannot be negative");
-        Util.zero(x);
+        if (small != null && index.bitLength() <= 63) {
+            small.point(index.longValue(), x);
+            return;
+        }
         transpose(index, x);
         transposedIndexToPoint(bits, x);
     }
 
+    /**
+     * Converts an index held as {@link #words()} {@code long} words (most
+     * significant word first) to a point without allocating.
+     * 
+     * @param index
+     *            words of the index
+     * @param x
+     *            receives the ordinates of the point
+     * @throws IllegalArgumentException
+     *             if index does not have length {@link #words()} or x does not
+     *             have length dimensions
+     */
+    public void point(long[] index, long[] x) {
+        Preconditions.checkArgument(index.length == words(), "index must have length ceil(bits * dimensions / 64)");
+        Preconditions.checkArgument(x.length == dimensions);
+        if (small != null) {
+            small.point(index[0], x);
+            return;
+        }
+        interleaving.deinterleave(index, x, dimensions);
+        transposedIndexToPoint(bits, x);
+    }
+
+    /**
+     * Converts a {@link WideIndex} to a point.
+     * 
+     * @param index
+     *            index with {@link #words()} words
+     * @return array of longs being the point
+     * @throws IllegalArgumentException
+     *             if index does not have {@link #words()} words
+     */
+    public long[] point(WideIndex index) {
+        long[] x = new long[dimensions];
+        point(index.toWords(), x);
+        return x;
+    }
+
     public void point(long i, long[] x) {
-        point(BigInteger.valueOf(i), x);
+        if (small != null) {
+            Preconditions.checkArgument(i >= 0, "index cannot be negative");
+            small.point(i, x);
+        } else {
+            point(BigInteger.valueOf(i), x);
+        }
     }
 
     /**
@@ -124,9 +388,89 @@ public final class HilbertCurve {
      *             if index is negative
      */
     public long[] point(long index) {
+        if (small != null) {
+            Preconditions.checkArgument(index >= 0, "index cannot be negative");
+            return small.point(index);
+        }
         return point(BigInteger.valueOf(index));
     }
 
+    /////////////////////////////////////////////////
+    // Query support
+    ////////////////////////////////////////////////
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}. The list will be in increasing order of the range bounds (there
+     * should be no overlaps).
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public List<WideRange> query(long[] a, long[] b) {
+        return query(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and {@code b}.
+     * The list will be in increasing order of the range bounds (there should be no
+     * overlaps). The index ranges may cover a larger region than the search box
+     * because the set of exact covering ranges will have been reduced by joining
+     * ranges with minimal gaps. If the index fits in a long the query is answered
+     * by {@link SmallHilbertCurve#query(long[], long[], int)}, otherwise all
+     * exact ranges are found before joining so the extra coverage is minimal.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public List<WideRange> query(long[] a, long[] b, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        if (small != null) {
+            List<WideRange> list = new ArrayList<>();
+            for (Range r : small.query(a, b, maxRanges)) {
+                list.add(WideRange.create(WideIndex.wrap(new long[] { r.low() }),
+                        WideIndex.wrap(new long[] { r.high() })));
+            }
+            return list;
+        }
+        // this is the implementation of the Perimiter Algorithm mentioned in
+        // README.md (see SmallHilbertCurve). The perimeter indexes are held as
+        // fixed width records of words in one long[] and radix sorted.
+        int words = words();
+        Box box = new Box(a, b);
+        LongBuffer buffer = new LongBuffer();
+        long[] scratch = new long[dimensions];
+        long[] index = new long[words];
+        box.visitPerimeter(cell -> {
+            index(cell, scratch, index);
+            for (int w = 0; w < words; w++) {
+                buffer.add(index[w]);
+            }
+        });
+        int count = buffer.size() / words;
+        long[] keys = buffer.values();
+        LongBuffer.sortRecords(keys, count, words, length);
+        List<WideRange> ranges = new ArrayList<>();
+        PerimeterRanges.forEach(box, keys, count, words, dimensions, this::point,
+                (low, high) -> ranges.add(range(keys, low, high, words)));
+        return RangeJoiner.join(ranges, maxRanges, (x, y) -> y.low().minus(x.high()), WideRange::join);
+    }
+
+    private static WideRange range(long[] keys, int low, int high, int words) {
+        return WideRange.create(WideIndex.wrap(Arrays.copyOfRange(keys, low * words, (low + 1) * words)),
+                WideIndex.wrap(Arrays.copyOfRange(keys, high * words, (high + 1) * words)));
+    }
+
     /**
      * Returns the transposed representation of the Hilbert curve index.
      * 
@@ -154,15 +498,17 @@ public final class HilbertCurve {
         return x;
     }
 
+    // overwrites the first dimensions elements of x
     private void transpose(BigInteger index, long[] x) {
         byte[] b = index.toByteArray();
-        for (int idx = 0; idx < 8 * b.length; idx++) {
-            if ((b[b.length - 1 - idx / 8] & (1L << (idx % 8))) != 0) {
-                int dim = (length - idx - 1) % dimensions;
-                int shift = (idx / dimensions) % bits;
-                x[dim] |= 1L << shift;
-            }
+        int words = words();
+        long[] w = new long[words];
+        // b is big-endian and may have a leading sign byte or be shorter than
+        // the index, bytes beyond the index length are ignored
+        for (int i = 0; i < b.length && i < 8 * words; i++) {
+            w[words - 1 - i / 8] |= (b[b.length - 1 - i] & 0xFFL) << (8 * (i % 8));
         }
+        interleaving.deinterleave(w, x, dimensions);
     }
 
     /**
@@ -185,30 +531,47 @@ public final class HilbertCurve {
      */
     @VisibleForTesting
     static long[] transposedIndex(int bits, long... point) {
-        final long M = 1L << (bits - 1);
-        final int n = point.length; // n: Number of dimensions
-        final long[] x = Arrays.copyOf(point, n);
-        long p, q, t;
-        int i;
+        return axesToTranspose(bits, Arrays.copyOf(point, point.length));
+    }
+
+    /**
+     * As {@link #transposedIndex(int, long...)} but transforms {@code x} in place
+     * rather than allocating a copy.
+     * 
+     * @param bits
+     *            depth of the Hilbert curve
+     * @param x
+     *            Point in N-space, is mutated to become the transposed index
+     * @return x
+     */
+    static long[] axesToTranspose(int bits, long[] x) {
+        return axesToTranspose(bits, x, x.length);
+    }
+
+    // only the first n elements of x are used
+    static long[] axesToTranspose(int bits, long[] x, int n) {
+        long p, m, t;
+        int i, s;
         // Inverse undo
-        for (q = M; q > 1; q >>= 1) {
-            p = q - 1;
-            for (i = 0; i < n; i++)
-                if ((x[i] & q) != 0)
-                    x[0] ^= p; // invert
-                else {
-                    t = (x[0] ^ x[i]) & p;
-                    x[0] ^= t;
-                    x[i] ^= t;
-                }
+        // (branch free, the bits tested are effectively random so branches are
+        // mispredicted about half the time. m is all ones to invert and zero to
+        // exchange)
+        for (s = bits - 1; s > 0; s--) {
+            p = (1L << s) - 1;
+            for (i = 0; i < n; i++) {
+                m = -((x[i] >>> s) & 1);
+                x[0] ^= p & m; // invert
+                t = (x[0] ^ x[i]) & p & ~m;
+                x[0] ^= t;
+                x[i] ^= t;
+            }
         } // exchange
           // Gray encode
         for (i = 1; i < n; i++)
             x[i] ^= x[i - 1];
         t = 0;
-        for (q = M; q > 1; q >>= 1)
-            if ((x[n - 1] & q) != 0)
-                t ^= q - 1;
+        for (s = bits - 1; s > 0; s--)
+            t ^= ((1L << s) - 1) & -((x[n - 1] >>> s) & 1);
         for (i = 0; i < n; i++)
             x[i] ^= t;
 
@@ -227,12 +590,11 @@ public final class HilbertCurve {
      *         the Hilbert curve
      */
     static long[] transposedIndexToPoint(int bits, long... x) {
-        final long N = 2L << (bits - 1);
         // Note that x is mutated by this method (as a performance improvement
         // to avoid allocation)
         int n = x.length; // number of dimensions
-        long p, q, t;
-        int i;
+        long p, m, t;
+        int i, s;
         // Gray decode by H ^ (H/2)
         t = x[n - 1] >> 1;
         // Corrected error in Skilling's paper on the following line. The
@@ -240,17 +602,16 @@ public final class HilbertCurve {
         for (i = n - 1; i > 0; i--)
             x[i] ^= x[i - 1];
         x[0] ^= t;
-        // Undo excess work
-        for (q = 2; q != N; q <<= 1) {
-            p = q - 1;
-            for (i = n - 1; i >= 0; i--)
-                if ((x[i] & q) != 0L)
-                    x[0] ^= p; // invert
-                else {
-                    t = (x[0] ^ x[i]) & p;
-                    x[0] ^= t;
-                    x[i] ^= t;
-                }
+        // Undo excess work (branch free as in axesToTranspose)
+        for (s = 1; s < bits; s++) {
+            p = (1L << s) - 1;
+            for (i = n - 1; i >= 0; i--) {
+                m = -((x[i] >>> s) & 1);
+                x[0] ^= p & m; // invert
+                t = (x[0] ^ x[i]) & p & ~m;
+                x[0] ^= t;
+                x[i] ^= t;
+            }
         } // exchange
         return x;
     }
@@ -264,20 +625,15 @@ public final class HilbertCurve {
     // single number.
     @VisibleForTesting
     BigInteger toIndex(long... transposedIndex) {
-        byte[] b = new byte[length];
-        int bIndex = length - 1;
-        long mask = 1L << (bits - 1);
-        for (int i = 0; i < bits; i++) {
-            for (int j = 0; j < transposedIndex.length; j++) {
-                if ((transposedIndex[j] & mask) != 0) {
-                    b[length - 1 - bIndex / 8] |= 1 << (bIndex % 8);
-                }
-                bIndex--;
-            }
-            mask >>= 1;
-        }
+        byte[] b = new byte[bytes()];
+        interleaving.interleave(transposedIndex, b);
         // b is expected to be BigEndian
         return new BigInteger(1, b);
     }
 
+    // number of bytes needed to hold an index
+    private int bytes() {
+        return (length + 7) / 8;
+    }
+
 }
\ No newline at end of file
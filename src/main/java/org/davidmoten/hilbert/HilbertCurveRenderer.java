@@ -6,7 +6,6 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
 
 import javax.imageio.ImageIO;
 
@@ -33,7 +32,8 @@ public final class HilbertCurveRenderer {
 
     public static BufferedImage render(int bits, int width, Option... options) {
         int dimensions = 2;
-        HilbertCurve c = HilbertCurve.bits(bits).dimensions(dimensions);
+        // walk the curve with a cursor rather than decoding every index
+        HilbertCursor c = HilbertCurve.small().bits(bits).dimensions(dimensions).cursor(0);
         int n = 1 << bits;
         int height = width;
         BufferedImage b = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
@@ -44,19 +44,23 @@ public final class HilbertCurveRenderer {
         g.setStroke(new BasicStroke(0.5f));
         int margin = 10;
         int cellSize = (width - 2 * margin) / (n);
+        // reused for every cell so the walk does not allocate
+        long[] point = new long[dimensions];
 
         if (contains(options, Option.COLORIZE)) {
             int x = margin + cellSize / 2;
             int y = margin + cellSize / 2;
+            c.moveTo(0);
             for (long i = 0; i < n * n; i++) {
                 fill(n, g, cellSize, x, y, i);
-                long[] point = c.point(BigInteger.valueOf(i));
+                c.point(point);
                 int x2 = (int) Math.round((double) point[0] / (n - 1) * (width - 2 * margin - cellSize) + margin)
                         + cellSize / 2;
                 int y2 = (int) Math.round((double) point[1] / (n - 1) * (height - 2 * margin - cellSize) + margin)
                         + cellSize / 2;
                 x = x2;
                 y = y2;
+                c.next();
             }
             fill(n, g, cellSize, x, y, n * n);
         }
@@ -66,8 +70,9 @@ public final class HilbertCurveRenderer {
             x = margin + cellSize / 2;
             y = margin + cellSize / 2;
             g.setColor(Color.black);
+            c.moveTo(0);
             for (long i = 0; i < n * n; i++) {
-                long[] point = c.point(BigInteger.valueOf(i));
+                c.point(point);
                 int x2 = (int) Math.round((double) point[0] / (n - 1) * (width - 2 * margin - cellSize) + margin)
                         + cellSize / 2;
                 int y2 = (int) Math.round((double) point[1] / (n - 1) * (height - 2 * margin - cellSize) + margin)
@@ -75,6 +80,7 @@ public final class HilbertCurveRenderer {
                 x = x2;
                 y = y2;
                 drawNumber(g, x, y, i);
+                c.next();
             }
         }
 
@@ -83,8 +89,9 @@ public final class HilbertCurveRenderer {
         x = margin + cellSize / 2;
         y = margin + cellSize / 2;
         g.setColor(Color.black);
+        c.moveTo(0);
         for (long i = 0; i < n * n; i++) {
-            long[] point = c.point(BigInteger.valueOf(i));
+            c.point(point);
             int x2 = (int) Math.round((double) point[0] / (n - 1) * (width - 2 * margin - cellSize) + margin)
                     + cellSize / 2;
             int y2 = (int) Math.round((double) point[1] / (n - 1) * (height - 2 * margin - cellSize) + margin)
@@ -92,6 +99,7 @@ public final class HilbertCurveRenderer {
             g.drawLine(x, y, x2, y2);
             x = x2;
             y = y2;
+            c.next();
         }
         return b;
     }
@@ -0,0 +1,246 @@
+package org.davidmoten.hilbert;
+
+import java.util.Arrays;
+
+/**
+ * The orientation of the Hilbert curve within a sub-cube as accumulated by
+ * Skilling's {@code AxestoTranspose} one level (bit) at a time.
+ *
+ * <p>
+ * Skilling's algorithm processes the bits of the ordinates from most
+ * significant to least significant and at each level either inverts the lower
+ * bits of {@code x[0]} or exchanges the lower bits of {@code x[0]} and
+ * {@code x[i]}. The accumulated effect on the lower bits is a permutation of
+ * the dimensions plus a reflection mask, and together with the running parity
+ * used by the Gray encoding step that is all that is needed to produce the
+ * next {@code dimensions} bits of the index. This class holds that state so
+ * the index can be produced (or consumed) level by level.
+ *
+ * <p>
+ * Digits have bit {@code dimensions-1-i} set for the i-th Gray coded bit (the
+ * same order the bits appear in the index). Raw bits have bit {@code i} set if
+ * the ordinate of dimension {@code i} has a set bit at the current level.
+ * Supports up to 63 dimensions.
+ */
+// NotThreadSafe
+final class HilbertState {
+
+    static final int MAX_DIMENSIONS = 63;
+
+    private final int dimensions;
+
+    // perm[i] is the dimension of the original point whose lower bits
+    // currently occupy position i
+    private final int[] perm;
+
+    // bit i set if the lower bits at position i are inverted
+    private long flips;
+
+    // parity of the Gray coded last ordinate over the levels processed so far
+    private boolean parity;
+
+    HilbertState(int dimensions) {
+        this.dimensions = dimensions;
+        this.perm = new int[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            perm[i] = i;
+        }
+    }
+
+    private HilbertState(int dimensions, int[] perm, long flips, boolean parity) {
+        this.dimensions = dimensions;
+        this.perm = perm;
+        this.flips = flips;
+        this.parity = parity;
+    }
+
+    HilbertState copy() {
+        return new HilbertState(dimensions, Arrays.copyOf(perm, dimensions), flips, parity);
+    }
+
+    // makes this state equal to other without allocating
+    void copyFrom(HilbertState other) {
+        System.arraycopy(other.perm, 0, perm, 0, dimensions);
+        flips = other.flips;
+        parity = other.parity;
+    }
+
+    /**
+     * Returns the digit for the given raw bits at the current level and moves
+     * this state to the sub-cube containing those bits.
+     *
+     * @param raw
+     *            bit i is the bit of the ordinate of dimension i at this level
+     * @return the next {@code dimensions} bits of the index
+     */
+    long encode(long raw) {
+        long c = orient(raw);
+        // the digit uses the parity before descending
+        long digit = gray(c);
+        descend(c);
+        return digit;
+    }
+
+    /**
+     * Returns the digit for the given raw bits at the current level without
+     * moving this state.
+     *
+     * @param raw
+     *            bit i is the bit of the ordinate of dimension i at this level
+     * @return the next {@code dimensions} bits of the index
+     */
+    long digit(long raw) {
+        return gray(orient(raw));
+    }
+
+    // raw bits in the orientation of this state
+    private long orient(long raw) {
+        long c = 0;
+        for (int i = 0; i < dimensions; i++) {
+            c |= ((raw >>> perm[i]) & 1) << i;
+        }
+        return c ^ flips;
+    }
+
+    // Gray encodes oriented bits into a digit
+    private long gray(long c) {
+        long digit = 0;
+        long g = parity ? 1 : 0;
+        for (int i = 0; i < dimensions; i++) {
+            g ^= (c >>> i) & 1;
+            digit |= g << (dimensions - 1 - i);
+        }
+        return digit;
+    }
+
+    /**
+     * Returns the raw bits for the given digit at the current level and moves
+     * this state to the sub-cube of that digit. The inverse of
+     * {@link #encode(long)}.
+     *
+     * @param digit
+     *            the next {@code dimensions} bits of the index
+     * @return bit i is the bit of the ordinate of dimension i at this level
+     */
+    long decode(long digit) {
+        // Gray decode (the parity only contributes to the first bit)
+        long c = 0;
+        long previous = parity ? 1 : 0;
+        for (int i = 0; i < dimensions; i++) {
+            long h = (digit >>> (dimensions - 1 - i)) & 1;
+            c |= (h ^ previous) << i;
+            previous = h;
+        }
+        long x = c ^ flips;
+        long raw = 0;
+        for (int i = 0; i < dimensions; i++) {
+            raw |= ((x >>> i) & 1) << perm[i];
+        }
+        descend(c);
+        return raw;
+    }
+
+    /**
+     * As {@link #encode(long)} but returns only the digit bits of the positions
+     * occupied by active dimensions (the compact digit of Hamilton and
+     * Rau-Chaplin's compact Hilbert index). The raw bits of inactive
+     * dimensions must be zero.
+     *
+     * <p>
+     * An inactive dimension has a zero raw bit so its oriented bit is the flip
+     * at its position and its digit bit is the previous digit bit (or the
+     * parity) xor that flip. The digit bits of inactive positions are therefore
+     * implied by the others and the order of the digits is the order of the
+     * compact digits.
+     *
+     * @param raw
+     *            bit i is the bit of the ordinate of dimension i at this level
+     * @param active
+     *            bit i set if dimension i has a bit at this level
+     * @return the compact digit, one bit per active dimension
+     */
+    long encodeCompact(long raw, long active) {
+        long free = positions(active);
+        return Interleaving.compress(encode(raw), free);
+    }
+
+    /**
+     * The inverse of {@link #encodeCompact(long, long)}.
+     *
+     * @param compact
+     *            the compact digit, one bit per active dimension
+     * @param active
+     *            bit i set if dimension i has a bit at this level
+     * @return bit i is the bit of the ordinate of dimension i at this level
+     */
+    long decodeCompact(long compact, long active) {
+        long free = positions(active);
+        long digit = Interleaving.expand(compact, free);
+        long previous = parity ? 1 : 0;
+        for (int i = 0; i < dimensions; i++) {
+            int position = dimensions - 1 - i;
+            if (((free >>> position) & 1) == 0) {
+                previous ^= (flips >>> i) & 1;
+                digit |= previous << position;
+            } else {
+                previous = (digit >>> position) & 1;
+            }
+        }
+        return decode(digit);
+    }
+
+    // digit positions (bit dimensions - 1 - i for position i) occupied by the
+    // given dimensions
+    private long positions(long dims) {
+        long p = 0;
+        for (int i = 0; i < dimensions; i++) {
+            p |= ((dims >>> perm[i]) & 1) << (dimensions - 1 - i);
+        }
+        return p;
+    }
+
+    private void descend(long c) {
+        for (int i = 0; i < dimensions; i++) {
+            if (((c >>> i) & 1) != 0) {
+                // invert
+                flips ^= 1;
+            } else if (i > 0) {
+                // exchange
+                int p = perm[0];
+                perm[0] = perm[i];
+                perm[i] = p;
+                long f = (flips ^ (flips >>> i)) & 1;
+                flips ^= f | (f << i);
+            }
+        }
+        parity ^= (Long.bitCount(c) & 1) == 1;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = Arrays.hashCode(perm);
+        result = prime * result + (int) (flips ^ (flips >>> 32));
+        result = prime * result + (parity ? 1231 : 1237);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        HilbertState other = (HilbertState) obj;
+        return flips == other.flips && parity == other.parity && Arrays.equals(perm, other.perm);
+    }
+
+    @Override
+    public String toString() {
+        return "HilbertState [perm=" + Arrays.toString(perm) + ", flips=" + Long.toBinaryString(flips)
+                + ", parity=" + parity + "]";
+    }
+
+}
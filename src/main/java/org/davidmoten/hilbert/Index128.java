@@ -0,0 +1,122 @@
+package org.davidmoten.hilbert;
+
+import java.math.BigInteger;
+
+/**
+ * An unsigned 128-bit Hilbert index held as two {@code long}s. Ordering is the
+ * unsigned numeric ordering of the 128-bit value.
+ */
+public final class Index128 implements Comparable<Index128> {
+
+    private static final BigInteger TWO_TO_64 = BigInteger.ONE.shiftLeft(64);
+
+    private final long hi;
+    private final long lo;
+
+    private Index128(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * Returns the 128-bit index {@code hi * 2^64 + lo} (both words unsigned).
+     * 
+     * @param hi
+     *            most significant 64 bits
+     * @param lo
+     *            least significant 64 bits
+     * @return index
+     */
+    public static Index128 create(long hi, long lo) {
+        return new Index128(hi, lo);
+    }
+
+    /**
+     * Returns the index with the given value.
+     * 
+     * @param value
+     *            value between 0 and 2<sup>128</sup>-1 inclusive
+     * @return index
+     * @throws IllegalArgumentException
+     *             if value is out of range
+     */
+    public static Index128 create(BigInteger value) {
+        if (value.signum() < 0 || value.bitLength() > 128) {
+            throw new IllegalArgumentException("value must be between 0 and 2^128 - 1");
+        }
+        return new Index128(value.shiftRight(64).longValue(), value.longValue());
+    }
+
+    public long hi() {
+        return hi;
+    }
+
+    public long lo() {
+        return lo;
+    }
+
+    public BigInteger toBigInteger() {
+        BigInteger low = BigInteger.valueOf(lo);
+        if (lo < 0) {
+            low = low.add(TWO_TO_64);
+        }
+        if (hi == 0) {
+            return low;
+        }
+        BigInteger high = BigInteger.valueOf(hi);
+        if (hi < 0) {
+            high = high.add(TWO_TO_64);
+        }
+        return high.shiftLeft(64).or(low);
+    }
+
+    // this + 1 (wraps at 2^128)
+    Index128 next() {
+        long lo2 = lo + 1;
+        return new Index128(lo2 == 0 ? hi + 1 : hi, lo2);
+    }
+
+    // this - other (wraps at 2^128)
+    Index128 minus(Index128 other) {
+        long lo2 = lo - other.lo;
+        long borrow = Long.compareUnsigned(lo, other.lo) < 0 ? 1 : 0;
+        return new Index128(hi - other.hi - borrow, lo2);
+    }
+
+    @Override
+    public int compareTo(Index128 other) {
+        int c = Long.compareUnsigned(hi, other.hi);
+        if (c != 0) {
+            return c;
+        } else {
+            return Long.compareUnsigned(lo, other.lo);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (int) (hi ^ (hi >>> 32));
+        result = prime * result + (int) (lo ^ (lo >>> 32));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        Index128 other = (Index128) obj;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public String toString() {
+        return toBigInteger().toString();
+    }
+
+}
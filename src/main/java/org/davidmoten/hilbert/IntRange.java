@@ -0,0 +1,67 @@
+package org.davidmoten.hilbert;
+
+/**
+ * An inclusive range of {@code int} Hilbert indexes (see
+ * {@link TinyHilbertCurve}).
+ */
+public final class IntRange {
+
+    private final int low;
+    private final int high;
+
+    private IntRange(int low, int high) {
+        this.low = Math.min(low, high);
+        this.high = Math.max(low, high);
+    }
+
+    public static IntRange create(int low, int high) {
+        return new IntRange(low, high);
+    }
+
+    public static IntRange create(int value) {
+        return new IntRange(value, value);
+    }
+
+    public int low() {
+        return low;
+    }
+
+    public int high() {
+        return high;
+    }
+
+    public boolean contains(int value) {
+        return low <= value && value <= high;
+    }
+
+    public IntRange join(IntRange range) {
+        return IntRange.create(Math.min(low, range.low), Math.max(high, range.high));
+    }
+
+    @Override
+    public String toString() {
+        return "IntRange [low=" + low + ", high=" + high + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + high;
+        result = prime * result + low;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        IntRange other = (IntRange) obj;
+        return low == other.low && high == other.high;
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Moves bits between the transposed form of a Hilbert index (one {@code long}
+ * per dimension) and the interleaved {@code long} index.
+ *
+ * <p>
+ * This is the Java 8 implementation. A Java 19+ implementation using
+ * {@code Long.expand} and {@code Long.compress} (intrinsified to PDEP/PEXT on
+ * x86) is in {@code src/main/java19} and is packaged as a multi-release class.
+ * Both implementations must keep the same package-private signatures.
+ */
+final class Interleaving {
+
+    private Interleaving() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns for each dimension the mask of index bits that come from that
+     * dimension. The bit at level l of dimension j is at position
+     * {@code l * dimensions + dimensions - 1 - j} of the index.
+     *
+     * @param bits
+     *            bits per dimension
+     * @param dimensions
+     *            number of dimensions
+     * @return masks indexed by dimension
+     */
+    static long[] masks(int bits, int dimensions) {
+        long[] masks = new long[dimensions];
+        for (int j = 0; j < dimensions; j++) {
+            for (int level = 0; level < bits; level++) {
+                masks[j] |= 1L << (level * dimensions + dimensions - 1 - j);
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Deposits the low bits of {@code x} at the positions of the set bits of
+     * {@code mask} (lowest first). Same as Java 19's {@code Long.expand}.
+     * 
+     * @param x
+     *            source bits
+     * @param mask
+     *            target positions
+     * @return expanded bits
+     */
+    static long expand(long x, long mask) {
+        long b = 0;
+        while (mask != 0) {
+            long lowest = mask & -mask;
+            // branch free because the bits are typically random
+            b |= lowest & -(x & 1);
+            x >>>= 1;
+            mask ^= lowest;
+        }
+        return b;
+    }
+
+    /**
+     * Extracts the bits of {@code x} at the positions of the set bits of
+     * {@code mask} into the low bits of the result (lowest first). Same as Java
+     * 19's {@code Long.compress}.
+     * 
+     * @param x
+     *            source bits
+     * @param mask
+     *            source positions
+     * @return compressed bits
+     */
+    static long compress(long x, long mask) {
+        long b = 0;
+        int i = 0;
+        while (mask != 0) {
+            b |= ((x >>> Long.numberOfTrailingZeros(mask)) & 1) << i;
+            i++;
+            mask &= mask - 1;
+        }
+        return b;
+    }
+
+    /**
+     * Returns the number of dimensions at and above which
+     * {@link WordInterleaving} moves bits with a {@link BitMatrix} transpose
+     * rather than one {@link #expand(long, long)} or
+     * {@link #compress(long, long)} per dimension and word. A method rather than
+     * a constant so that the multi-release implementation's value is used.
+     * 
+     * @return minimum number of dimensions for the transpose
+     */
+    static int transposeMinDimensions() {
+        return 16;
+    }
+
+    static long interleave(long[] transposedIndex, long[] masks, int bits) {
+        int dimensions = masks.length;
+        long b = 0;
+        for (int j = 0; j < dimensions; j++) {
+            long x = transposedIndex[j];
+            int position = dimensions - 1 - j;
+            for (int level = 0; level < bits; level++) {
+                b |= ((x >>> level) & 1) << position;
+                position += dimensions;
+            }
+        }
+        return b;
+    }
+
+    static void deinterleave(long index, long[] masks, int bits, long[] transposedIndex) {
+        int dimensions = masks.length;
+        for (int j = 0; j < dimensions; j++) {
+            long x = 0;
+            int position = dimensions - 1 - j;
+            for (int level = 0; level < bits; level++) {
+                x |= ((index >>> position) & 1) << level;
+                position += dimensions;
+            }
+            transposedIndex[j] = x;
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.davidmoten.hilbert;
+
+import java.util.List;
+
+/**
+ * The intersection of several regions. An orthant is outside the intersection
+ * if it is outside any one of the regions and inside if it is inside all of
+ * them. Otherwise it is partial and is split further.
+ */
+final class Intersection implements Region {
+
+    private final List<? extends Region> regions;
+
+    Intersection(List<? extends Region> regions) {
+        this.regions = regions;
+    }
+
+    @Override
+    public Relation relate(long[] mins, long[] maxes) {
+        boolean inside = true;
+        for (Region region : regions) {
+            Relation r = region.relate(mins, maxes);
+            if (r == Relation.OUTSIDE) {
+                return Relation.OUTSIDE;
+            } else if (r == Relation.PARTIAL) {
+                inside = false;
+            }
+        }
+        return inside ? Relation.INSIDE : Relation.PARTIAL;
+    }
+
+}
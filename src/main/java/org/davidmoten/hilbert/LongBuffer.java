@@ -0,0 +1,161 @@
+package org.davidmoten.hilbert;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of primitive {@code long} values with an in-place LSD
+ * radix sort of non-negative values. Used to collect the indexes of the
+ * perimeter cells of a query box without boxing each one.
+ */
+// NotThreadSafe
+final class LongBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // bits sorted per pass of the radix sort
+    private static final int RADIX_BITS = 11;
+
+    // below this size a comparison sort is cheaper than the counting passes
+    private static final int RADIX_SORT_MIN_SIZE = 256;
+
+    private long[] values;
+    private int size;
+
+    LongBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    LongBuffer(int capacity) {
+        this.values = new long[Math.max(1, capacity)];
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length << 1);
+        }
+        values[size++] = value;
+    }
+
+    long get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // the backing array, holds the values at indexes 0 to size() - 1
+    long[] values() {
+        return values;
+    }
+
+    // the values without copying when the buffer is exactly full
+    long[] toArray() {
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the values into ascending order. The values must be non-negative
+     * and less than 2<sup>significantBits</sup>.
+     *
+     * @param significantBits
+     *            number of low order bits that may be set (0 to 63)
+     */
+    void sort(int significantBits) {
+        sort(values, size, significantBits);
+    }
+
+    // visible for testing
+    static void sort(long[] a, int size, int significantBits) {
+        if (size < RADIX_SORT_MIN_SIZE) {
+            Arrays.sort(a, 0, size);
+            return;
+        }
+        int passes = (significantBits + RADIX_BITS - 1) / RADIX_BITS;
+        // spread the bits evenly over the passes to keep the counts small
+        int radixBits = passes == 0 ? 0 : (significantBits + passes - 1) / passes;
+        int mask = (1 << radixBits) - 1;
+        int[] counts = new int[1 << radixBits];
+        long[] from = a;
+        long[] to = new long[size];
+        for (int pass = 0; pass < passes; pass++) {
+            int shift = pass * radixBits;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (from[i] >>> shift) & mask]++;
+            }
+            int total = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int c = counts[d];
+                counts[d] = total;
+                total += c;
+            }
+            for (int i = 0; i < size; i++) {
+                long v = from[i];
+                to[counts[(int) (v >>> shift) & mask]++] = v;
+            }
+            long[] t = from;
+            from = to;
+            to = t;
+        }
+        if (from != a) {
+            System.arraycopy(from, 0, a, 0, size);
+        }
+    }
+
+    /**
+     * Sorts records of {@code words} consecutive values (an unsigned number
+     * held most significant word first, the layout of a {@link WideIndex}) into
+     * ascending order with an LSD radix sort. Only the low
+     * {@code significantBits - 64 * (words - 1)} bits of the first word of a
+     * record may be set.
+     *
+     * @param a
+     *            holds the records from position 0
+     * @param count
+     *            number of records
+     * @param words
+     *            number of values in a record
+     * @param significantBits
+     *            number of low order bits of a record that may be set
+     */
+    static void sortRecords(long[] a, int count, int words, int significantBits) {
+        int[] counts = new int[1 << RADIX_BITS];
+        long[] from = a;
+        long[] to = new long[count * words];
+        for (int w = words - 1; w >= 0; w--) {
+            int wordBits = w == 0 ? significantBits - 64 * (words - 1) : 64;
+            int passes = (wordBits + RADIX_BITS - 1) / RADIX_BITS;
+            int radixBits = passes == 0 ? 0 : (wordBits + passes - 1) / passes;
+            long mask = (1L << radixBits) - 1;
+            for (int pass = 0; pass < passes; pass++) {
+                int shift = pass * radixBits;
+                Arrays.fill(counts, 0);
+                for (int i = 0; i < count; i++) {
+                    counts[(int) ((from[i * words + w] >>> shift) & mask)]++;
+                }
+                int total = 0;
+                for (int d = 0; d <= mask; d++) {
+                    int c = counts[d];
+                    counts[d] = total;
+                    total += c;
+                }
+                for (int i = 0; i < count; i++) {
+                    int j = counts[(int) ((from[i * words + w] >>> shift) & mask)]++;
+                    System.arraycopy(from, i * words, to, j * words, words);
+                }
+                long[] t = from;
+                from = to;
+                to = t;
+            }
+        }
+        if (from != a) {
+            System.arraycopy(from, 0, a, 0, count * words);
+        }
+    }
+
+}
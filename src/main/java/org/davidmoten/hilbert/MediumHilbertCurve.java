@@ -0,0 +1,252 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Converts between Hilbert index ({@link Index128}) and N-dimensional points
+ * where {@code bits * dimensions <= 128}. Fills the gap between
+ * {@link SmallHilbertCurve} (63 bits of index) and {@link HilbertCurve}
+ * ({@code BigInteger} index) so that for example 4 dimensions of 32 bits can be
+ * handled without {@code BigInteger} or {@code byte[]} conversions. The index
+ * is held as two {@code long}s and the {@code long[]} based methods do not
+ * allocate.
+ * 
+ * <p>
+ * Note: This algorithm is derived from work done by John Skilling and published
+ * in "Programming the Hilbert curve". (c) 2004 American Institute of Physics.
+ */
+public final class MediumHilbertCurve {
+
+    private final int bits;
+    private final int dimensions;
+    // bits of the low word of the index belonging to each dimension
+    private final long[] lowMasks;
+    // bits of the high word of the index belonging to each dimension
+    private final long[] highMasks;
+    // number of bits of each dimension in the low word
+    private final int[] lowBits;
+
+    private MediumHilbertCurve(int bits, int dimensions) {
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.lowMasks = new long[dimensions];
+        this.highMasks = new long[dimensions];
+        this.lowBits = new int[dimensions];
+        for (int j = 0; j < dimensions; j++) {
+            for (int level = 0; level < bits; level++) {
+                int position = level * dimensions + dimensions - 1 - j;
+                if (position < 64) {
+                    lowMasks[j] |= 1L << position;
+                    lowBits[j]++;
+                } else {
+                    highMasks[j] |= 1L << (position - 64);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @return index in the range 0 to 2<sup>bits * dimensions</sup> - 1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions.
+     */
+    public Index128 index(long... point) {
+        Preconditions.checkArgument(point.length == dimensions);
+        long[] x = HilbertCurve.transposedIndex(bits, point);
+        return Index128.create(high(x), low(x));
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index without allocating.
+     * {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @param index
+     *            receives the most significant 64 bits of the index at position
+     *            0 and the least significant 64 bits at position 1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions, scratch is too short or index has length less than
+     *             2
+     */
+    public void index(long[] point, long[] scratch, long[] index) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(scratch.length >= dimensions, "scratch must have length at least dimensions");
+        Preconditions.checkArgument(index.length >= 2, "index must have length at least 2");
+        System.arraycopy(point, 0, scratch, 0, dimensions);
+        HilbertCurve.axesToTranspose(bits, scratch, dimensions);
+        index[0] = high(scratch);
+        index[1] = low(scratch);
+    }
+
+    /**
+     * Converts an index (distance along the Hilbert Curve from 0) to a point.
+     * 
+     * @param index
+     *            index along the Hilbert Curve from 0. Maximum value 2
+     *            <sup>bits * dimensions</sup>-1.
+     * @return array of longs being the point
+     */
+    public long[] point(Index128 index) {
+        long[] x = new long[dimensions];
+        point(index.hi(), index.lo(), x);
+        return x;
+    }
+
+    public void point(Index128 index, long[] x) {
+        point(index.hi(), index.lo(), x);
+    }
+
+    /**
+     * Converts an index (distance along the Hilbert Curve from 0) to a point
+     * without allocating.
+     * 
+     * @param hi
+     *            most significant 64 bits of the index
+     * @param lo
+     *            least significant 64 bits of the index
+     * @param x
+     *            receives the ordinates of the point
+     * @throws IllegalArgumentException
+     *             if length of x is not equal to the number of dimensions
+     */
+    public void point(long hi, long lo, long[] x) {
+        Preconditions.checkArgument(x.length == dimensions);
+        for (int j = 0; j < dimensions; j++) {
+            // lowBits[j] is at most 63 so the shift is safe
+            x[j] = Interleaving.compress(lo, lowMasks[j])
+                    | (Interleaving.compress(hi, highMasks[j]) << lowBits[j]);
+        }
+        HilbertCurve.transposedIndexToPoint(bits, x);
+    }
+
+    // interleave the transposed index into the low word of the index
+    private long low(long[] transposedIndex) {
+        long b = 0;
+        for (int j = 0; j < dimensions; j++) {
+            b |= Interleaving.expand(transposedIndex[j], lowMasks[j]);
+        }
+        return b;
+    }
+
+    // interleave the transposed index into the high word of the index
+    private long high(long[] transposedIndex) {
+        long b = 0;
+        for (int j = 0; j < dimensions; j++) {
+            b |= Interleaving.expand(transposedIndex[j] >>> lowBits[j], highMasks[j]);
+        }
+        return b;
+    }
+
+    public long maxOrdinate() {
+        return (1L << bits) - 1;
+    }
+
+    public Index128 maxIndex() {
+        int length = bits * dimensions;
+        if (length <= 64) {
+            return Index128.create(0, length == 64 ? -1L : (1L << length) - 1);
+        } else {
+            return Index128.create(length == 128 ? -1L : (1L << (length - 64)) - 1, -1L);
+        }
+    }
+
+    /////////////////////////////////////////////////
+    // Query support
+    ////////////////////////////////////////////////
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}. The list will be in increasing order of the range bounds (there
+     * should be no overlaps).
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public List<Range128> query(long[] a, long[] b) {
+        return query(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and {@code b}.
+     * The list will be in increasing order of the range bounds (there should be no
+     * overlaps). The index ranges may cover a larger region than the search box
+     * because the set of exact covering ranges will have been reduced by joining
+     * ranges with minimal gaps. All exact ranges are found before joining so the
+     * extra coverage is minimal.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public List<Range128> query(long[] a, long[] b, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        // this is the implementation of the Perimiter Algorithm mentioned in
+        // README.md (see SmallHilbertCurve). The perimeter indexes are held as
+        // records of two words (hi, lo) in one long[] and radix sorted.
+        Box box = new Box(a, b);
+        LongBuffer buffer = new LongBuffer();
+        long[] scratch = new long[dimensions];
+        long[] index = new long[2];
+        box.visitPerimeter(cell -> {
+            index(cell, scratch, index);
+            buffer.add(index[0]);
+            buffer.add(index[1]);
+        });
+        int count = buffer.size() / 2;
+        long[] keys = buffer.values();
+        LongBuffer.sortRecords(keys, count, 2, bits * dimensions);
+        List<Range128> ranges = new ArrayList<>();
+        PerimeterRanges.forEach(box, keys, count, 2, dimensions, (idx, point) -> point(idx[0], idx[1], point),
+                (low, high) -> ranges.add(Range128.create(Index128.create(keys[2 * low], keys[2 * low + 1]),
+                        Index128.create(keys[2 * high], keys[2 * high + 1]))));
+        return RangeJoiner.join(ranges, maxRanges, (x, y) -> y.low().minus(x.high()), Range128::join);
+    }
+
+    public static final class Builder {
+        private int bits;
+
+        Builder() {
+            // private instantiation
+        }
+
+        public Builder bits(int bits) {
+            Preconditions.checkArgument(bits > 0, "bits must be greater than zero");
+            Preconditions.checkArgument(bits < 64, "bits must be 63 or less");
+            this.bits = bits;
+            return this;
+        }
+
+        public MediumHilbertCurve dimensions(int dimensions) {
+            Preconditions.checkArgument(bits > 0, "bits must be set first");
+            Preconditions.checkArgument(dimensions > 1, "dimensions must be at least 2");
+            Preconditions.checkArgument(bits * dimensions <= 128,
+                    "bits * dimensions must be less than or equal to 128");
+            return new MediumHilbertCurve(bits, dimensions);
+        }
+
+    }
+
+}
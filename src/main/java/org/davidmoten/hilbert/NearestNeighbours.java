@@ -0,0 +1,167 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Best-first k nearest neighbour search over items stored in Hilbert order.
+ * Orthants (sub-cubes) of the curve are explored in increasing order of their
+ * minimum distance from the query point using a priority queue. An orthant
+ * with sides of at most 2<sup>scanLevels</sup> cells is read with one range
+ * scan (its indexes are one range), a larger one is split into its
+ * 2<sup>dimensions</sup> children. The search stops when the k-th best
+ * distance found is no more than the minimum distance of the next orthant
+ * because no unread item can then be closer, so only the ranges of orthants
+ * that could hold one of the k nearest items are read.
+ *
+ * @param <T>
+ *            type of the stored items
+ */
+// NotThreadSafe
+final class NearestNeighbours<T> {
+
+    private final int bits;
+    private final int dimensions;
+    // null unless 2 or 3 dimensions
+    private final StateTables tables;
+    private final long[] point;
+    private final int k;
+    private final int scanLevels;
+    private final RangeScanner<T> scanner;
+
+    // the best k items so far, furthest first
+    private final PriorityQueue<Neighbour<T>> best = new PriorityQueue<>(
+            Comparator.comparingDouble((Neighbour<T> n) -> n.distance()).reversed());
+
+    NearestNeighbours(int bits, int dimensions, StateTables tables, long[] point, int k, int scanLevels,
+            RangeScanner<T> scanner) {
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.tables = tables;
+        this.point = point;
+        this.k = k;
+        this.scanLevels = scanLevels;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @return the nearest k items (fewer if fewer are stored) nearest first
+     */
+    List<Neighbour<T>> search() {
+        PriorityQueue<Orthant> queue = new PriorityQueue<>();
+        queue.add(new Orthant(0, 0, 0, new long[dimensions], 0, tables == null ? new HilbertState(dimensions) : null,
+                0));
+        while (!queue.isEmpty()) {
+            Orthant o = queue.poll();
+            if (best.size() == k && best.peek().distance() <= Math.sqrt(o.distanceSquared)) {
+                break;
+            }
+            int levels = bits - o.depth;
+            if (levels <= scanLevels) {
+                int shift = levels * dimensions;
+                scanner.scan(Range.create(o.prefix << shift, ((o.prefix + 1) << shift) - 1), this::offer);
+            } else {
+                split(o, queue);
+            }
+        }
+        List<Neighbour<T>> list = new ArrayList<>(best);
+        list.sort(Comparator.comparingDouble(Neighbour::distance));
+        return list;
+    }
+
+    private void offer(long[] p, T value) {
+        double d = Math.sqrt(distanceSquared(p, p));
+        if (best.size() < k) {
+            best.add(new Neighbour<T>(p.clone(), value, d));
+        } else if (d < best.peek().distance()) {
+            best.poll();
+            best.add(new Neighbour<T>(p.clone(), value, d));
+        }
+    }
+
+    // adds the children of o to the queue
+    private void split(Orthant o, PriorityQueue<Orthant> queue) {
+        int level = bits - o.depth - 1;
+        for (long digit = 0; digit < 1L << dimensions; digit++) {
+            long[] low = new long[dimensions];
+            int tableState = 0;
+            HilbertState state = null;
+            if (tables != null) {
+                int entry = tables.decodeLevel(o.tableState, (int) digit);
+                tableState = entry >>> dimensions;
+                for (int i = 0; i < dimensions; i++) {
+                    low[i] = o.low[i] | ((((long) entry >>> (dimensions - 1 - i)) & 1) << level);
+                }
+            } else {
+                state = o.state.copy();
+                long raw = state.decode(digit);
+                for (int i = 0; i < dimensions; i++) {
+                    low[i] = o.low[i] | (((raw >>> i) & 1) << level);
+                }
+            }
+            long[] high = new long[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                high[i] = low[i] + (1L << level) - 1;
+            }
+            long prefix = (o.prefix << dimensions) | digit;
+            queue.add(new Orthant(o.depth + 1, prefix, prefix << (level * dimensions), low,
+                    distanceSquared(low, high), state, tableState));
+        }
+    }
+
+    // squared distance from the query point to the nearest point of the box
+    private double distanceSquared(long[] mins, long[] maxes) {
+        double sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            double d;
+            if (point[i] < mins[i]) {
+                d = mins[i] - point[i];
+            } else if (point[i] > maxes[i]) {
+                d = point[i] - maxes[i];
+            } else {
+                d = 0;
+            }
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    private static final class Orthant implements Comparable<Orthant> {
+        final int depth;
+        final long prefix;
+        // the lowest index in the orthant
+        final long start;
+        final long[] low;
+        final double distanceSquared;
+        // the state of the curve within the orthant
+        final HilbertState state;
+        final int tableState;
+
+        Orthant(int depth, long prefix, long start, long[] low, double distanceSquared, HilbertState state,
+                int tableState) {
+            this.depth = depth;
+            this.prefix = prefix;
+            this.start = start;
+            this.low = low;
+            this.distanceSquared = distanceSquared;
+            this.state = state;
+            this.tableState = tableState;
+        }
+
+        @Override
+        public int compareTo(Orthant o) {
+            // nearest first then in index order
+            int c = Double.compare(distanceSquared, o.distanceSquared);
+            if (c != 0) {
+                return c;
+            } else {
+                return Long.compare(start, o.start);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.davidmoten.hilbert;
+
+import java.util.Arrays;
+
+/**
+ * An item found by a nearest neighbour search with its point and its
+ * Euclidean distance from the query point.
+ *
+ * @param <T>
+ *            type of the item
+ */
+public final class Neighbour<T> {
+
+    private final long[] point;
+    private final T value;
+    private final double distance;
+
+    Neighbour(long[] point, T value, double distance) {
+        this.point = point;
+        this.value = value;
+        this.distance = distance;
+    }
+
+    /**
+     * Returns a copy of the point of the item that the caller may modify.
+     *
+     * @return point of the item
+     */
+    public long[] point() {
+        return point.clone();
+    }
+
+    public T value() {
+        return value;
+    }
+
+    public double distance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "Neighbour [point=" + Arrays.toString(point) + ", value=" + value + ", distance=" + distance + "]";
+    }
+
+}
@@ -0,0 +1,206 @@
+package org.davidmoten.hilbert;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.davidmoten.hilbert.Region.Relation;
+
+/**
+ * Finds the index ranges of a {@link SmallHilbertCurve} covering a
+ * {@link Region} by descending the curve's tree of orthants (sub-cubes). The
+ * children of an orthant are visited in index order and each is classified
+ * against the region: an orthant inside the region is one range, an orthant
+ * outside is skipped and only orthants partially in the region are split. The
+ * work is therefore proportional to the number of ranges found times
+ * {@code bits} (times 2<sup>dimensions</sup> children per split) rather than to
+ * the surface area of the region as for the perimeter algorithm. Ranges are
+ * found in increasing order and adjacent ranges are joined so for an exact
+ * query the result is the same as the perimeter algorithm's.
+ *
+ * <p>
+ * The descent can be limited to a maximum depth (number of levels below the
+ * whole domain). A partial orthant at that depth is covered by one range so
+ * the ranges cover the region approximately (a superset) with less work.
+ *
+ * <p>
+ * The descent uses an explicit stack of {@code bits + 1} orthants so ranges
+ * are produced lazily by {@link #next()}, each after only the work needed to
+ * find it, in memory that does not depend on the size of the region.
+ */
+// NotThreadSafe
+final class OrthantDecomposition implements Iterator<Range> {
+
+    private final int bits;
+    private final int dimensions;
+    // null unless 2 or 3 dimensions
+    private final StateTables tables;
+    private final Region region;
+    // a partial orthant at this depth is covered by one range rather than split
+    private final int maxDepth;
+
+    // the state of the curve within the orthant at each depth (depth 0 is the
+    // whole domain, depth d has its top d levels decided)
+    private final int[] tableStates;
+    private final HilbertState[] states;
+    // lowest ordinate in each dimension of the orthant at each depth
+    private final long[][] lows;
+    // index bits of the orthant at each depth
+    private final long[] prefixes;
+    // the digit of the next child to visit of the orthant at each depth
+    private final long[] digits;
+    private final long[] mins;
+    private final long[] maxes;
+
+    // depth of the orthant on top of the stack, -1 when the descent is done
+    private int depth;
+    // true if the orthant on top of the stack is yet to be classified
+    private boolean unclassified = true;
+
+    // the orthant in the region last found by advance()
+    private long foundLow;
+    private long foundHigh;
+
+    // the pending range (adjacent ranges are joined before being returned)
+    private long start = -1;
+    private long end = -1;
+
+    // the range to be returned by next(), null if not yet found
+    private Range next;
+
+    OrthantDecomposition(int bits, int dimensions, StateTables tables, Region region) {
+        this(bits, dimensions, tables, region, bits);
+    }
+
+    OrthantDecomposition(int bits, int dimensions, StateTables tables, Region region, int maxDepth) {
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.tables = tables;
+        this.region = region;
+        this.maxDepth = maxDepth;
+        this.tableStates = new int[bits + 1];
+        if (tables == null) {
+            this.states = new HilbertState[bits + 1];
+            for (int i = 0; i <= bits; i++) {
+                states[i] = new HilbertState(dimensions);
+            }
+        } else {
+            this.states = null;
+        }
+        this.lows = new long[bits + 1][dimensions];
+        this.prefixes = new long[bits + 1];
+        this.digits = new long[bits + 1];
+        this.mins = new long[dimensions];
+        this.maxes = new long[dimensions];
+    }
+
+    /**
+     * Adds the remaining ranges covering the region to the given
+     * {@link Ranges}.
+     *
+     * @param ranges
+     *            receives the ranges
+     */
+    void addTo(Ranges ranges) {
+        while (hasNext()) {
+            ranges.add(next());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = find();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Range next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Range r = next;
+        next = null;
+        return r;
+    }
+
+    // returns the next range joining adjacent orthants or null if none left
+    private Range find() {
+        while (advance()) {
+            if (start == -1) {
+                start = foundLow;
+                end = foundHigh;
+            } else if (end + 1 == foundLow) {
+                end = foundHigh;
+            } else {
+                Range r = Range.create(start, end);
+                start = foundLow;
+                end = foundHigh;
+                return r;
+            }
+        }
+        if (start != -1) {
+            Range r = Range.create(start, end);
+            start = -1;
+            return r;
+        }
+        return null;
+    }
+
+    // moves to the next orthant in index order that is in the region, setting
+    // foundLow and foundHigh, and returns false if there is none
+    private boolean advance() {
+        while (depth >= 0) {
+            int levels = bits - depth;
+            if (unclassified) {
+                unclassified = false;
+                long size = 1L << levels;
+                long[] low = lows[depth];
+                for (int i = 0; i < dimensions; i++) {
+                    mins[i] = low[i];
+                    maxes[i] = low[i] + size - 1;
+                }
+                Relation relation = region.relate(mins, maxes);
+                if (relation == Relation.OUTSIDE) {
+                    depth--;
+                    continue;
+                } else if (relation == Relation.INSIDE || depth == maxDepth) {
+                    int shift = levels * dimensions;
+                    foundLow = prefixes[depth] << shift;
+                    foundHigh = ((prefixes[depth] + 1) << shift) - 1;
+                    depth--;
+                    return true;
+                }
+                digits[depth] = 0;
+            }
+            if (digits[depth] == 1L << dimensions) {
+                // all children visited
+                depth--;
+                continue;
+            }
+            long digit = digits[depth]++;
+            int level = levels - 1;
+            long[] low = lows[depth];
+            long[] childLow = lows[depth + 1];
+            if (tables != null) {
+                int entry = tables.decodeLevel(tableStates[depth], (int) digit);
+                tableStates[depth + 1] = entry >>> dimensions;
+                for (int i = 0; i < dimensions; i++) {
+                    childLow[i] = low[i] | ((((long) entry >>> (dimensions - 1 - i)) & 1) << level);
+                }
+            } else {
+                HilbertState state = states[depth + 1];
+                state.copyFrom(states[depth]);
+                long raw = state.decode(digit);
+                for (int i = 0; i < dimensions; i++) {
+                    childLow[i] = low[i] | (((raw >>> i) & 1) << level);
+                }
+            }
+            prefixes[depth + 1] = (prefixes[depth] << dimensions) | digit;
+            depth++;
+            unclassified = true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Builds the exact index ranges covering a box from the sorted Hilbert indexes
+ * of the cells on the perimeter of the box (the Perimeter Algorithm mentioned
+ * in README.md). Indexes are held as fixed width records of {@code words}
+ * values (most significant word first, the layout of a {@link WideIndex}) in
+ * one {@code long[]} so the same walk serves {@link SmallHilbertCurve} (one
+ * word), {@link MediumHilbertCurve} (two words) and {@link HilbertCurve}.
+ */
+final class PerimeterRanges {
+
+    private PerimeterRanges() {
+        // prevent instantiation
+    }
+
+    interface Points {
+        /**
+         * Writes the point of the index to {@code point}.
+         *
+         * @param index
+         *            index as words, most significant first
+         * @param point
+         *            receives the ordinates of the point
+         */
+        void point(long[] index, long[] point);
+    }
+
+    interface RangeConsumer {
+        /**
+         * Receives a range from record {@code low} to record {@code high}
+         * inclusive of the keys.
+         *
+         * @param low
+         *            position of the record of the lowest index of the range
+         * @param high
+         *            position of the record of the highest index of the range
+         */
+        void accept(int low, int high);
+    }
+
+    /**
+     * Passes the ranges covering {@code box} in increasing order to
+     * {@code consumer}.
+     *
+     * @param box
+     *            the query box
+     * @param keys
+     *            the sorted indexes of the perimeter cells of the box as
+     *            records from position 0
+     * @param count
+     *            number of records
+     * @param words
+     *            number of values in a record
+     * @param dimensions
+     *            number of dimensions of the curve
+     * @param points
+     *            converts an index to a point
+     * @param consumer
+     *            receives the ranges
+     */
+    static void forEach(Box box, long[] keys, int count, int words, int dimensions, Points points,
+            RangeConsumer consumer) {
+        long[] point = new long[dimensions];
+        long[] next = new long[words];
+        int i = 0;
+        int rangeStart = -1;
+        while (i < count) {
+            if (rangeStart == -1) {
+                rangeStart = i;
+            }
+            while (i < count - 1 && isSuccessor(keys, i, i + 1, words)) {
+                i++;
+            }
+            if (i == count - 1) {
+                consumer.accept(rangeStart, i);
+                break;
+            }
+            successor(keys, i, words, next);
+            points.point(next, point);
+            if (!box.contains(point)) {
+                // otherwise the next index is internal to the box so the next
+                // perimeter index must be where the curve exits
+                consumer.accept(rangeStart, i);
+                rangeStart = -1;
+            }
+            i++;
+        }
+    }
+
+    // true if record j of keys is one more than record i
+    private static boolean isSuccessor(long[] keys, int i, int j, int words) {
+        long carry = 1;
+        for (int w = words - 1; w >= 0; w--) {
+            long x = keys[i * words + w];
+            if (x + carry != keys[j * words + w]) {
+                return false;
+            }
+            carry = carry == 1 && x == -1L ? 1 : 0;
+        }
+        return true;
+    }
+
+    // writes record i of keys plus one to next
+    private static void successor(long[] keys, int i, int words, long[] next) {
+        long carry = 1;
+        for (int w = words - 1; w >= 0; w--) {
+            long x = keys[i * words + w];
+            next[w] = x + carry;
+            carry = carry == 1 && x == -1L ? 1 : 0;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.davidmoten.hilbert;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the sorted Hilbert indexes of the cells of a list of boxes (the
+ * faces of the perimeter of a query box) in a fork/join pool. Lists of boxes
+ * are split in half and a single box is split across its longest side until a
+ * task holds at most {@link #LEAF_CELLS} cells. A leaf encodes its cells and
+ * radix sorts them, and each parent merges the sorted runs of its two
+ * children.
+ */
+final class PerimeterTask extends RecursiveTask<long[]> {
+
+    private static final long serialVersionUID = -2816365208366542236L;
+
+    // cells encoded and sorted by one task without splitting further
+    static final long LEAF_CELLS = 1 << 14;
+
+    private final SmallHilbertCurve curve;
+    private final List<Box> boxes;
+
+    PerimeterTask(SmallHilbertCurve curve, List<Box> boxes) {
+        this.curve = curve;
+        this.boxes = boxes;
+    }
+
+    @Override
+    protected long[] compute() {
+        long cells = 0;
+        for (Box box : boxes) {
+            // saturates rather than overflowing
+            cells = Math.min(cells + Math.min(box.volume(), LEAF_CELLS + 1), LEAF_CELLS + 1);
+        }
+        if (cells <= LEAF_CELLS) {
+            return leaf((int) cells);
+        }
+        PerimeterTask left;
+        PerimeterTask right;
+        if (boxes.size() == 1) {
+            Box[] halves = boxes.get(0).split();
+            left = new PerimeterTask(curve, Collections.singletonList(halves[0]));
+            right = new PerimeterTask(curve, Collections.singletonList(halves[1]));
+        } else {
+            int middle = boxes.size() / 2;
+            left = new PerimeterTask(curve, boxes.subList(0, middle));
+            right = new PerimeterTask(curve, boxes.subList(middle, boxes.size()));
+        }
+        left.fork();
+        long[] b = right.compute();
+        long[] a = left.join();
+        return merge(a, b);
+    }
+
+    private long[] leaf(int cells) {
+        LongBuffer indexes = new LongBuffer(cells);
+        long[] scratch = new long[curve.dimensions()];
+        for (Box box : boxes) {
+            box.visitCells(cell -> indexes.add(curve.index(cell, scratch)));
+        }
+        indexes.sort(curve.bits() * curve.dimensions());
+        return indexes.toArray();
+    }
+
+    // visible for testing
+    static long[] merge(long[] a, long[] b) {
+        long[] c = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] <= b[j]) {
+                c[k++] = a[i++];
+            } else {
+                c[k++] = b[j++];
+            }
+        }
+        System.arraycopy(a, i, c, k, a.length - i);
+        System.arraycopy(b, j, c, k + a.length - i, b.length - j);
+        return c;
+    }
+
+}
@@ -0,0 +1,214 @@
+package org.davidmoten.hilbert;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A simple or self-intersecting polygon in the plane of a 2 dimensional curve
+ * (even-odd rule). A cell is in the polygon if its ordinates are (cells on an
+ * edge may be classed either way).
+ *
+ * <p>
+ * A square of cells crossed by no edge is entirely inside or entirely outside
+ * the polygon so only one of its corners needs a point in polygon test. A
+ * square that an edge crosses is partial (the boundary) and is split further,
+ * so per cell tests are only done for cells along the edges.
+ *
+ * <p>
+ * So that polygons with many vertices do not test every edge for every square
+ * the bounding box of the polygon is divided into a grid of about one bucket
+ * per vertex. Each bucket lists the edges whose bounding boxes overlap it and
+ * each row of buckets (band) lists the edges whose vertical extent overlaps
+ * it, which are the only edges a horizontal ray cast from a point in the band
+ * can cross.
+ */
+final class Polygon implements Region {
+
+    private final double[] x;
+    private final double[] y;
+    // bounding box of edge i (from vertex i to vertex i + 1)
+    private final double[] edgeMinX;
+    private final double[] edgeMaxX;
+    private final double[] edgeMinY;
+    private final double[] edgeMaxY;
+
+    // bounding box of the polygon
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+
+    // number of buckets across (and down) the bounding box
+    private final int grid;
+    private final double bucketWidth;
+    private final double bucketHeight;
+    // edges overlapping bucket (row * grid + column)
+    private final int[][] buckets;
+    // edges overlapping each row of buckets
+    private final int[][] bands;
+
+    Polygon(double[] x, double[] y) {
+        Preconditions.checkArgument(x.length == y.length, "x and y must have the same length");
+        Preconditions.checkArgument(x.length >= 3, "a polygon must have at least 3 vertices");
+        this.x = x.clone();
+        this.y = y.clone();
+        int n = x.length;
+        this.edgeMinX = new double[n];
+        this.edgeMaxX = new double[n];
+        this.edgeMinY = new double[n];
+        this.edgeMaxY = new double[n];
+        double x0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            int j = next(i);
+            edgeMinX[i] = Math.min(x[i], x[j]);
+            edgeMaxX[i] = Math.max(x[i], x[j]);
+            edgeMinY[i] = Math.min(y[i], y[j]);
+            edgeMaxY[i] = Math.max(y[i], y[j]);
+            x0 = Math.min(x0, x[i]);
+            x1 = Math.max(x1, x[i]);
+            y0 = Math.min(y0, y[i]);
+            y1 = Math.max(y1, y[i]);
+        }
+        this.minX = x0;
+        this.maxX = x1;
+        this.minY = y0;
+        this.maxY = y1;
+        this.grid = (int) Math.ceil(Math.sqrt(n));
+        this.bucketWidth = x1 > x0 ? (x1 - x0) / grid : 1;
+        this.bucketHeight = y1 > y0 ? (y1 - y0) / grid : 1;
+        this.buckets = new int[grid * grid][];
+        this.bands = new int[grid][];
+        index();
+    }
+
+    // fills the buckets and bands (counting first so each list is an exact
+    // size array)
+    private void index() {
+        int n = x.length;
+        int[] bucketCounts = new int[grid * grid];
+        int[] bandCounts = new int[grid];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                int c0 = column(edgeMinX[i]);
+                int c1 = column(edgeMaxX[i]);
+                int r0 = row(edgeMinY[i]);
+                int r1 = row(edgeMaxY[i]);
+                for (int r = r0; r <= r1; r++) {
+                    if (pass == 0) {
+                        bandCounts[r]++;
+                    } else {
+                        bands[r][--bandCounts[r]] = i;
+                    }
+                    for (int c = c0; c <= c1; c++) {
+                        int b = r * grid + c;
+                        if (pass == 0) {
+                            bucketCounts[b]++;
+                        } else {
+                            buckets[b][--bucketCounts[b]] = i;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int b = 0; b < buckets.length; b++) {
+                    buckets[b] = new int[bucketCounts[b]];
+                }
+                for (int r = 0; r < grid; r++) {
+                    bands[r] = new int[bandCounts[r]];
+                }
+            }
+        }
+    }
+
+    private int column(double v) {
+        return Math.max(0, Math.min(grid - 1, (int) ((v - minX) / bucketWidth)));
+    }
+
+    private int row(double v) {
+        return Math.max(0, Math.min(grid - 1, (int) ((v - minY) / bucketHeight)));
+    }
+
+    @Override
+    public Relation relate(long[] mins, long[] maxes) {
+        if (maxes[0] < minX || mins[0] > maxX || maxes[1] < minY || mins[1] > maxY) {
+            return Relation.OUTSIDE;
+        }
+        if (mins[0] == maxes[0] && mins[1] == maxes[1]) {
+            // a single cell
+            return contains(mins[0], mins[1]) ? Relation.INSIDE : Relation.OUTSIDE;
+        }
+        if (crossed(mins[0], mins[1], maxes[0], maxes[1])) {
+            return Relation.PARTIAL;
+        }
+        return contains(mins[0], mins[1]) ? Relation.INSIDE : Relation.OUTSIDE;
+    }
+
+    // true if any edge meets the rectangle
+    private boolean crossed(double x0, double y0, double x1, double y1) {
+        int c0 = column(x0);
+        int c1 = column(x1);
+        int r0 = row(y0);
+        int r1 = row(y1);
+        if ((long) (c1 - c0 + 1) * (r1 - r0 + 1) > x.length) {
+            // cheaper to test every edge once
+            for (int i = 0; i < x.length; i++) {
+                if (crosses(i, x0, y0, x1, y1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                for (int i : buckets[r * grid + c]) {
+                    if (crosses(i, x0, y0, x1, y1)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // true if edge i meets the rectangle
+    private boolean crosses(int i, double x0, double y0, double x1, double y1) {
+        if (edgeMaxX[i] < x0 || edgeMinX[i] > x1 || edgeMaxY[i] < y0 || edgeMinY[i] > y1) {
+            return false;
+        }
+        // the bounding boxes overlap so the edge meets the rectangle unless all
+        // corners are strictly on one side of its line
+        int j = next(i);
+        double dx = x[j] - x[i];
+        double dy = y[j] - y[i];
+        int sides = side(dx, dy, x0 - x[i], y0 - y[i]) + side(dx, dy, x1 - x[i], y0 - y[i])
+                + side(dx, dy, x0 - x[i], y1 - y[i]) + side(dx, dy, x1 - x[i], y1 - y[i]);
+        return sides != 4 && sides != -4;
+    }
+
+    private static int side(double dx, double dy, double px, double py) {
+        return (int) Math.signum(dx * py - dy * px);
+    }
+
+    // even-odd ray casting test of the point (px, py) against the edges of its
+    // band
+    private boolean contains(double px, double py) {
+        if (py < minY || py > maxY) {
+            return false;
+        }
+        boolean inside = false;
+        for (int i : bands[row(py)]) {
+            int j = next(i);
+            if ((y[i] > py) != (y[j] > py) && px < (x[j] - x[i]) * (py - y[i]) / (y[j] - y[i]) + x[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private int next(int i) {
+        return i == x.length - 1 ? 0 : i + 1;
+    }
+
+}
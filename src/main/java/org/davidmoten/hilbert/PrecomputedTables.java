@@ -0,0 +1,120 @@
+package org.davidmoten.hilbert;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * The complete point to index and index to point mappings of a small curve
+ * ({@code bits * dimensions <= 20}) held in two {@code int[]} (8MB at 20 bits).
+ * The tables are built on first use, in parallel, and are shared by all
+ * curves with the same bits and dimensions.
+ * 
+ * <p>
+ * A point is addressed by concatenating its ordinates (dimension 0 most
+ * significant) and the point table holds that concatenation for each index.
+ */
+final class PrecomputedTables {
+
+    static final int MAX_BITS = 20;
+
+    // number of indexes each parallel task converts
+    private static final int TASK_SIZE = 4096;
+
+    // keyed by bits (high 32 bits) and dimensions
+    private static final ConcurrentMap<Long, PrecomputedTables> CACHE = new ConcurrentHashMap<>();
+
+    private final SmallHilbertCurve curve;
+    private final int bits;
+    private final int dimensions;
+    private final long ordinateMask;
+
+    private volatile Tables tables;
+
+    /**
+     * Returns the shared tables for the bits and dimensions of the curve.
+     *
+     * @param curve
+     *            curve (without precomputed tables) used to build the tables
+     * @return tables
+     */
+    static PrecomputedTables forCurve(SmallHilbertCurve curve) {
+        int bits = curve.bits();
+        int dimensions = curve.dimensions();
+        return CACHE.computeIfAbsent(((long) bits << 32) | dimensions,
+                key -> new PrecomputedTables(curve, bits, dimensions));
+    }
+
+    private PrecomputedTables(SmallHilbertCurve curve, int bits, int dimensions) {
+        this.curve = curve;
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.ordinateMask = (1L << bits) - 1;
+    }
+
+    private static final class Tables {
+        // indexed by concatenated ordinates
+        final int[] indexes;
+        // indexed by index
+        final int[] points;
+
+        Tables(int[] indexes, int[] points) {
+            this.indexes = indexes;
+            this.points = points;
+        }
+    }
+
+    // reads the ordinates from point[offset] to point[offset + dimensions - 1]
+    long index(long[] point, int offset) {
+        int key = 0;
+        for (int i = 0; i < dimensions; i++) {
+            key = (key << bits) | (int) point[offset + i];
+        }
+        return tables().indexes[key];
+    }
+
+    // writes the ordinates to x[offset] to x[offset + dimensions - 1]
+    void point(long index, long[] x, int offset) {
+        int key = tables().points[(int) index];
+        for (int i = dimensions - 1; i >= 0; i--) {
+            x[offset + i] = key & ordinateMask;
+            key >>>= bits;
+        }
+    }
+
+    private Tables tables() {
+        Tables t = tables;
+        if (t == null) {
+            synchronized (this) {
+                t = tables;
+                if (t == null) {
+                    t = build();
+                    tables = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    private Tables build() {
+        int n = 1 << (bits * dimensions);
+        int[] indexes = new int[n];
+        int[] points = new int[n];
+        // the mapping is a bijection so tasks write to distinct positions
+        IntStream.range(0, (n + TASK_SIZE - 1) / TASK_SIZE).parallel().forEach(task -> {
+            long[] x = new long[dimensions];
+            int end = Math.min(n, (task + 1) * TASK_SIZE);
+            for (int index = task * TASK_SIZE; index < end; index++) {
+                curve.point(index, x);
+                int key = 0;
+                for (int i = 0; i < dimensions; i++) {
+                    key = (key << bits) | (int) x[i];
+                }
+                indexes[key] = index;
+                points[index] = key;
+            }
+        });
+        return new Tables(indexes, points);
+    }
+
+}
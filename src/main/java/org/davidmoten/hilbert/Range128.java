@@ -0,0 +1,73 @@
+package org.davidmoten.hilbert;
+
+/**
+ * An inclusive range of 128-bit Hilbert indexes.
+ */
+public final class Range128 {
+
+    private final Index128 low;
+    private final Index128 high;
+
+    private Range128(Index128 low, Index128 high) {
+        if (low.compareTo(high) <= 0) {
+            this.low = low;
+            this.high = high;
+        } else {
+            this.low = high;
+            this.high = low;
+        }
+    }
+
+    public static Range128 create(Index128 low, Index128 high) {
+        return new Range128(low, high);
+    }
+
+    public static Range128 create(Index128 value) {
+        return new Range128(value, value);
+    }
+
+    public Index128 low() {
+        return low;
+    }
+
+    public Index128 high() {
+        return high;
+    }
+
+    public boolean contains(Index128 value) {
+        return low.compareTo(value) <= 0 && value.compareTo(high) <= 0;
+    }
+
+    public Range128 join(Range128 range) {
+        Index128 min = low.compareTo(range.low) <= 0 ? low : range.low;
+        Index128 max = high.compareTo(range.high) >= 0 ? high : range.high;
+        return new Range128(min, max);
+    }
+
+    @Override
+    public String toString() {
+        return "Range128 [low=" + low + ", high=" + high + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + high.hashCode();
+        result = prime * result + low.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        Range128 other = (Range128) obj;
+        return low.equals(other.low) && high.equals(other.high);
+    }
+
+}
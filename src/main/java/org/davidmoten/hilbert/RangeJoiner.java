@@ -0,0 +1,109 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Reduces an ordered list of non-overlapping ranges to at most
+ * {@code maxRanges} ranges by repeatedly joining the two neighbouring ranges
+ * with the smallest gap between them (ties are broken by position, lowest
+ * first). Because all ranges are known up front this minimizes the number of
+ * extra indexes covered and works for any range type.
+ */
+final class RangeJoiner {
+
+    private RangeJoiner() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the joined ranges.
+     * 
+     * @param ranges
+     *            ranges in increasing order without overlap
+     * @param maxRanges
+     *            maximum number of ranges to return, 0 for unlimited
+     * @param gap
+     *            returns the gap between a range and the following range
+     * @param join
+     *            joins a range with the following range
+     * @param <R>
+     *            range type
+     * @param <G>
+     *            gap type
+     * @return ranges in increasing order, {@code ranges} itself if no joining
+     *         was required
+     */
+    static <R, G extends Comparable<? super G>> List<R> join(List<R> ranges, int maxRanges, BiFunction<R, R, G> gap,
+            BinaryOperator<R> join) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        int n = ranges.size();
+        if (maxRanges == 0 || n <= maxRanges) {
+            return ranges;
+        }
+        List<R> values = new ArrayList<>(ranges);
+        int[] previous = new int[n];
+        int[] next = new int[n];
+        boolean[] removed = new boolean[n];
+        PriorityQueue<Gap<G>> queue = new PriorityQueue<>(n);
+        for (int i = 0; i < n; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1;
+            if (i < n - 1) {
+                queue.add(new Gap<G>(gap.apply(values.get(i), values.get(i + 1)), i));
+            }
+        }
+        int count = n;
+        while (count > maxRanges) {
+            // join the range at the lower end of the smallest gap into its
+            // successor. The gap before the joined range is unchanged because
+            // the joined range starts where the lower range started and is keyed
+            // by the position of the range before it so no queue entries go stale.
+            int left = queue.poll().left;
+            int right = next[left];
+            values.set(right, join.apply(values.get(left), values.get(right)));
+            removed[left] = true;
+            int p = previous[left];
+            previous[right] = p;
+            if (p >= 0) {
+                next[p] = right;
+            }
+            count--;
+        }
+        List<R> list = new ArrayList<>(count);
+        for (int i = 0; i < n; i++) {
+            if (!removed[i]) {
+                list.add(values.get(i));
+            }
+        }
+        return list;
+    }
+
+    private static final class Gap<G extends Comparable<? super G>> implements Comparable<Gap<G>> {
+
+        final G size;
+        // position of the range below the gap
+        final int left;
+
+        Gap(G size, int left) {
+            this.size = size;
+            this.left = left;
+        }
+
+        @Override
+        public int compareTo(Gap<G> o) {
+            int c = size.compareTo(o.size);
+            if (c != 0) {
+                return c;
+            } else {
+                return Integer.compare(left, o.left);
+            }
+        }
+    }
+
+}
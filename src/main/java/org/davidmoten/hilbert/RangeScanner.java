@@ -0,0 +1,27 @@
+package org.davidmoten.hilbert;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Reads stored items by Hilbert index range for a nearest neighbour search
+ * (see {@link SmallHilbertCurve#nearest(long[], int, int, RangeScanner)}).
+ *
+ * @param <T>
+ *            type of the stored items
+ */
+@FunctionalInterface
+public interface RangeScanner<T> {
+
+    /**
+     * Passes every stored item whose Hilbert index is in {@code range} to
+     * {@code consumer} together with its point. The point array is not kept
+     * by the search so may be reused between items.
+     *
+     * @param range
+     *            inclusive range of indexes to read
+     * @param consumer
+     *            receives the point and the item
+     */
+    void scan(Range range, BiConsumer<long[], T> consumer);
+
+}
@@ -0,0 +1,196 @@
+package org.davidmoten.hilbert;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A region of the grid of a {@link SmallHilbertCurve} that can be converted to
+ * covering index ranges by {@link SmallHilbertCurve#query(Region)}. A region
+ * only has to say how an aligned sub-cube of the curve (an orthant) relates to
+ * it: the query descends the curve's tree of orthants in index order, emitting
+ * orthants inside the region as ranges, skipping orthants outside and only
+ * splitting orthants that are partially inside.
+ *
+ * <p>
+ * Boxes, balls, polygons and the union, intersection and difference of other
+ * regions are provided by the static and default methods of this interface.
+ * For example a corridor along a route could be the union of rotated boxes and
+ * a region with a hole the difference of two regions.
+ *
+ * <p>
+ * {@code PARTIAL} is always a safe answer but a region should classify a
+ * single cell exactly as {@code INSIDE} or {@code OUTSIDE} (a single cell
+ * classed as {@code PARTIAL} is treated as inside, which also applies to the
+ * complement of the region in a difference).
+ */
+@FunctionalInterface
+public interface Region {
+
+    enum Relation {
+        /**
+         * The cells of the box are all in the region.
+         */
+        INSIDE,
+        /**
+         * No cell of the box is in the region.
+         */
+        OUTSIDE,
+        /**
+         * Some cells of the box may be in the region.
+         */
+        PARTIAL;
+    }
+
+    /**
+     * Returns how the box of cells with ordinates {@code mins[i]} to
+     * {@code maxes[i]} inclusive relates to this region. The arrays must not be
+     * modified.
+     *
+     * @param mins
+     *            lowest ordinate of the box in each dimension
+     * @param maxes
+     *            highest ordinate of the box in each dimension
+     * @return relation of the box to the region
+     */
+    Relation relate(long[] mins, long[] maxes);
+
+    /**
+     * Returns the region of cells not in this region.
+     *
+     * @return complement of this region
+     */
+    default Region complement() {
+        Region region = this;
+        return (mins, maxes) -> {
+            Relation r = region.relate(mins, maxes);
+            if (r == Relation.INSIDE) {
+                return Relation.OUTSIDE;
+            } else if (r == Relation.OUTSIDE) {
+                return Relation.INSIDE;
+            } else {
+                return Relation.PARTIAL;
+            }
+        };
+    }
+
+    /**
+     * Returns the region of cells in this region or in {@code other}.
+     *
+     * @param other
+     *            other region
+     * @return union
+     */
+    default Region or(Region other) {
+        return union(this, other);
+    }
+
+    /**
+     * Returns the region of cells in both this region and {@code other}.
+     *
+     * @param other
+     *            other region
+     * @return intersection
+     */
+    default Region and(Region other) {
+        return intersection(this, other);
+    }
+
+    /**
+     * Returns the region of cells in this region but not in {@code other}.
+     *
+     * @param other
+     *            region to remove
+     * @return difference
+     */
+    default Region minus(Region other) {
+        return intersection(this, other.complement());
+    }
+
+    /**
+     * Returns the box with opposing vertices {@code a} and {@code b}.
+     *
+     * @param a
+     *            one vertex of the box
+     * @param b
+     *            the opposing vertex to a
+     * @return box
+     */
+    static Region box(long[] a, long[] b) {
+        return new Box(a, b);
+    }
+
+    /**
+     * Returns the cells within Euclidean distance {@code radius} of
+     * {@code center} (see {@link SmallHilbertCurve#queryBall(long[], double)}).
+     *
+     * @param center
+     *            the center of the ball
+     * @param radius
+     *            the radius of the ball, zero or more
+     * @return ball
+     */
+    static Region ball(long[] center, double radius) {
+        return new Ball(center, radius);
+    }
+
+    /**
+     * Returns the cells inside the polygon with vertices {@code (x[i], y[i])}
+     * in the first two dimensions (see
+     * {@link SmallHilbertCurve#queryPolygon(double[], double[])}). With more
+     * than 2 dimensions the other ordinates are unrestricted (a prism).
+     *
+     * @param x
+     *            first ordinate of each vertex
+     * @param y
+     *            second ordinate of each vertex
+     * @return polygon
+     */
+    static Region polygon(double[] x, double[] y) {
+        return new Polygon(x, y);
+    }
+
+    /**
+     * Returns the region of cells in any of the given regions.
+     *
+     * @param regions
+     *            regions
+     * @return union
+     */
+    static Region union(Region... regions) {
+        return union(Arrays.asList(regions));
+    }
+
+    /**
+     * Returns the region of cells in any of the given regions.
+     *
+     * @param regions
+     *            regions
+     * @return union
+     */
+    static Region union(List<? extends Region> regions) {
+        return new Union(regions);
+    }
+
+    /**
+     * Returns the region of cells in all of the given regions.
+     *
+     * @param regions
+     *            regions
+     * @return intersection
+     */
+    static Region intersection(Region... regions) {
+        return intersection(Arrays.asList(regions));
+    }
+
+    /**
+     * Returns the region of cells in all of the given regions.
+     *
+     * @param regions
+     *            regions
+     * @return intersection
+     */
+    static Region intersection(List<? extends Region> regions) {
+        return new Intersection(regions);
+    }
+
+}
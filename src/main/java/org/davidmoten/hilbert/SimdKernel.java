@@ -0,0 +1,40 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Entry point for the SIMD batch encoding kernel.
+ *
+ * <p>
+ * This is the Java 8 implementation which has no SIMD kernel, callers fall
+ * back to the scalar path. The Java 19+ implementation in
+ * {@code src/main/java19} (packaged as a multi-release class) runs Skilling's
+ * transform over many points at once using the incubating Vector API when the
+ * {@code jdk.incubator.vector} module is enabled at runtime
+ * ({@code --add-modules jdk.incubator.vector}).
+ */
+final class SimdKernel {
+
+    private SimdKernel() {
+        // prevent instantiation
+    }
+
+    /**
+     * Calculates the indexes of the first points in {@code ordinates} (one array
+     * per dimension). Points not processed by this method must be processed by
+     * the caller.
+     *
+     * @param bits
+     *            bits per dimension
+     * @param ordinates
+     *            ordinates of the points, one array per dimension
+     * @param indexes
+     *            receives the index of the j-th point at position j
+     * @param count
+     *            number of points
+     * @return the number of points processed (always 0 for this
+     *         implementation)
+     */
+    static int indexes(int bits, long[][] ordinates, long[] indexes, int count) {
+        return 0;
+    }
+
+}
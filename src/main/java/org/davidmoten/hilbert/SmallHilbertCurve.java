@@ -1,8 +1,13 @@
 package org.davidmoten.hilbert;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.davidmoten.guavamini.Preconditions;
 
@@ -22,12 +27,52 @@ public final class SmallHilbertCurve {
 
     private final int bits;
     private final int dimensions;
-    private final int length;
+    // precomputed state transition tables (only for 2 and 3 dimensions, null
+    // otherwise)
+    private final StateTables tables;
+    // index bits belonging to each dimension
+    private final long[] masks;
+    // dense lookup tables (only when requested via precomputed(), null
+    // otherwise)
+    private final PrecomputedTables precomputed;
 
-    private SmallHilbertCurve(int bits, int dimensions) {
+    private SmallHilbertCurve(int bits, int dimensions, StateTables tables) {
         this.bits = bits;
         this.dimensions = dimensions;
-        this.length = bits * dimensions;
+        this.tables = tables;
+        this.masks = Interleaving.masks(bits, dimensions);
+        this.precomputed = null;
+    }
+
+    private SmallHilbertCurve(SmallHilbertCurve curve) {
+        this.bits = curve.bits;
+        this.dimensions = curve.dimensions;
+        this.tables = curve.tables;
+        this.masks = curve.masks;
+        this.precomputed = PrecomputedTables.forCurve(curve);
+    }
+
+    /**
+     * Returns a curve with the same bits and dimensions that answers
+     * {@code index} and {@code point} calls (including the batch methods) with
+     * a single array load. The complete point to index and index to point
+     * mappings are built (in parallel) on first use and take 2<sup>bits *
+     * dimensions + 3</sup> bytes (8MB for 20 bits). The mappings are built once
+     * and shared by all precomputed curves with the same bits and dimensions. Ordinates passed to the
+     * returned curve must be between 0 and {@link #maxOrdinate()}.
+     * 
+     * @return precomputed curve
+     * @throws IllegalArgumentException
+     *             if {@code bits * dimensions > 20}
+     */
+    public SmallHilbertCurve precomputed() {
+        Preconditions.checkArgument(bits * dimensions <= PrecomputedTables.MAX_BITS,
+                "bits * dimensions must be less than or equal to " + PrecomputedTables.MAX_BITS);
+        if (precomputed != null) {
+            return this;
+        } else {
+            return new SmallHilbertCurve(this);
+        }
     }
 
     /**
@@ -44,9 +89,43 @@ public final class SmallHilbertCurve {
      */
     public long index(long... point) {
         Preconditions.checkArgument(point.length == dimensions);
+        if (precomputed != null) {
+            return precomputed.index(point, 0);
+        }
+        if (tables != null) {
+            return tables.index(bits, point);
+        }
         return toIndex(HilbertCurve.transposedIndex(bits, point));
     }
 
+    /**
+     * Converts a point to its Hilbert curve index without allocating.
+     * {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code long}. Each coordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @return index {@code long} in the range 0 to 2<sup>bits * dimensions</sup> -
+     *         1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions or scratch is too short
+     */
+    public long index(long[] point, long[] scratch) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(scratch.length >= dimensions, "scratch must have length at least dimensions");
+        if (precomputed != null) {
+            return precomputed.index(point, 0);
+        }
+        if (tables != null) {
+            return tables.index(bits, point);
+        }
+        System.arraycopy(point, 0, scratch, 0, dimensions);
+        return toIndex(HilbertCurve.axesToTranspose(bits, scratch, dimensions));
+    }
+
     /**
      * Converts a {@code long} index (distance along the Hilbert Curve from 0) to a
      * point of dimensions defined in the constructor of {@code this}.
@@ -59,43 +138,229 @@ public final class SmallHilbertCurve {
      *             if index is negative
      */
     public long[] point(long index) {
+        if (precomputed != null) {
+            long[] x = new long[dimensions];
+            precomputed.point(index, x, 0);
+            return x;
+        }
+        if (tables != null) {
+            long[] x = new long[dimensions];
+            tables.point(bits, index, x);
+            return x;
+        }
         return HilbertCurve.transposedIndexToPoint(bits, transposeLong(index));
     }
 
     public void point(long index, long[] x) {
-        Util.zero(x);
+        if (precomputed != null) {
+            precomputed.point(index, x, 0);
+            return;
+        }
+        if (tables != null) {
+            tables.point(bits, index, x);
+            return;
+        }
         transposeLong(index, x);
         HilbertCurve.transposedIndexToPoint(bits, x);
     }
 
-    // untranspose
-    private long toIndex(long... transposedIndex) {
-        long b = 0;
-        int bIndex = length - 1;
-        long mask = 1L << (bits - 1);
-        for (int i = 0; i < bits; i++) {
-            for (int j = 0; j < transposedIndex.length; j++) {
-                if ((transposedIndex[j] & mask) != 0) {
-                    b |= 1L << bIndex;
+    /**
+     * Returns a cursor positioned at the given index that can step to the next
+     * or previous point along the curve in amortized constant time (much faster
+     * than calling {@link #point(long)} for every index of a range).
+     * 
+     * @param index
+     *            starting index
+     * @return cursor
+     * @throws IllegalArgumentException
+     *             if index is negative or greater than {@link #maxIndex()}
+     */
+    public HilbertCursor cursor(long index) {
+        return new HilbertCursor(bits, dimensions, tables, index);
+    }
+
+    /**
+     * Converts {@code count} points to their Hilbert curve indexes. The points
+     * are read from the flat array {@code points} where the ordinates of the j-th
+     * point are {@code points[j * dimensions]} to
+     * {@code points[j * dimensions + dimensions - 1]}. No allocation happens per
+     * point.
+     * 
+     * @param points
+     *            ordinates of the points, interleaved
+     * @param indexes
+     *            receives the index of the j-th point at position j
+     * @param count
+     *            number of points to convert
+     * @throws IllegalArgumentException
+     *             if count is negative or the arrays are too short
+     */
+    public void indexes(long[] points, long[] indexes, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= indexes.length, "indexes too short for count");
+        Preconditions.checkArgument((long) count * dimensions <= points.length, "points too short for count");
+        if (precomputed != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                indexes[j] = precomputed.index(points, offset);
+            }
+        } else if (tables != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                indexes[j] = tables.index(bits, points, offset);
+            }
+        } else {
+            long[] x = new long[dimensions];
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                System.arraycopy(points, offset, x, 0, dimensions);
+                indexes[j] = toIndex(HilbertCurve.axesToTranspose(bits, x));
+            }
+        }
+    }
+
+    /**
+     * Converts {@code count} points to their Hilbert curve indexes. The points
+     * are read from one array per dimension so that the ordinates of the j-th
+     * point are {@code ordinates[0][j]} to {@code ordinates[dimensions - 1][j]}.
+     * No allocation happens per point. On Java 19+ with
+     * {@code --add-modules jdk.incubator.vector} this layout is encoded with a
+     * SIMD kernel (one point per vector lane) for up to 8 dimensions.
+     * 
+     * @param ordinates
+     *            ordinates of the points, one array per dimension
+     * @param indexes
+     *            receives the index of the j-th point at position j
+     * @param count
+     *            number of points to convert
+     * @throws IllegalArgumentException
+     *             if count is negative, the number of ordinate arrays is not
+     *             equal to the number of dimensions or the arrays are too short
+     */
+    public void indexes(long[][] ordinates, long[] indexes, int count) {
+        checkOrdinates(ordinates, indexes, count);
+        if (precomputed != null) {
+            long[] x = new long[dimensions];
+            for (int j = 0; j < count; j++) {
+                for (int i = 0; i < dimensions; i++) {
+                    x[i] = ordinates[i][j];
                 }
-                bIndex--;
+                indexes[j] = precomputed.index(x, 0);
+            }
+            return;
+        }
+        // use the SIMD kernel where available (Java 19+ with the Vector API
+        // module enabled) except for 2 dimensions where the tables are faster.
+        // Remaining points are finished on the scalar path.
+        int start = bits > 0 && dimensions != 2 ? SimdKernel.indexes(bits, ordinates, indexes, count) : 0;
+        if (tables != null) {
+            for (int j = start; j < count; j++) {
+                indexes[j] = tables.index(bits, ordinates, j);
+            }
+        } else {
+            long[] x = new long[dimensions];
+            for (int j = start; j < count; j++) {
+                for (int i = 0; i < dimensions; i++) {
+                    x[i] = ordinates[i][j];
+                }
+                indexes[j] = toIndex(HilbertCurve.axesToTranspose(bits, x));
             }
-            mask >>= 1;
         }
-        // b is expected to be BigEndian
-        return b;
     }
 
-    private void transposeLong(long index, long[] x) {
-        for (int idx = 0; idx < 64; idx++) {
-            if ((index & (1L << idx)) != 0) {
-                int dim = (length - idx - 1) % dimensions;
-                int shift = (idx / dimensions) % bits;
-                x[dim] |= 1L << shift;
+    /**
+     * Converts {@code count} indexes to points. The ordinates of the point for
+     * {@code indexes[j]} are written to {@code points[j * dimensions]} to
+     * {@code points[j * dimensions + dimensions - 1]}. No allocation happens per
+     * point.
+     * 
+     * @param indexes
+     *            indexes along the Hilbert Curve
+     * @param points
+     *            receives the ordinates of the points, interleaved
+     * @param count
+     *            number of indexes to convert
+     * @throws IllegalArgumentException
+     *             if count is negative or the arrays are too short
+     */
+    public void points(long[] indexes, long[] points, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= indexes.length, "indexes too short for count");
+        Preconditions.checkArgument((long) count * dimensions <= points.length, "points too short for count");
+        if (precomputed != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                precomputed.point(indexes[j], points, offset);
+            }
+        } else if (tables != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                tables.point(bits, indexes[j], points, offset);
+            }
+        } else {
+            long[] x = new long[dimensions];
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                transposeLong(indexes[j], x);
+                HilbertCurve.transposedIndexToPoint(bits, x);
+                System.arraycopy(x, 0, points, offset, dimensions);
+            }
+        }
+    }
+
+    /**
+     * Converts {@code count} indexes to points. The ordinates of the point for
+     * {@code indexes[j]} are written to {@code ordinates[0][j]} to
+     * {@code ordinates[dimensions - 1][j]}. No allocation happens per point.
+     * 
+     * @param indexes
+     *            indexes along the Hilbert Curve
+     * @param ordinates
+     *            receives the ordinates of the points, one array per dimension
+     * @param count
+     *            number of indexes to convert
+     * @throws IllegalArgumentException
+     *             if count is negative, the number of ordinate arrays is not
+     *             equal to the number of dimensions or the arrays are too short
+     */
+    public void points(long[] indexes, long[][] ordinates, int count) {
+        checkOrdinates(ordinates, indexes, count);
+        if (precomputed != null) {
+            long[] x = new long[dimensions];
+            for (int j = 0; j < count; j++) {
+                precomputed.point(indexes[j], x, 0);
+                for (int i = 0; i < dimensions; i++) {
+                    ordinates[i][j] = x[i];
+                }
+            }
+        } else if (tables != null) {
+            for (int j = 0; j < count; j++) {
+                tables.point(bits, indexes[j], ordinates, j);
+            }
+        } else {
+            long[] x = new long[dimensions];
+            for (int j = 0; j < count; j++) {
+                transposeLong(indexes[j], x);
+                HilbertCurve.transposedIndexToPoint(bits, x);
+                for (int i = 0; i < dimensions; i++) {
+                    ordinates[i][j] = x[i];
+                }
             }
         }
     }
 
+    private void checkOrdinates(long[][] ordinates, long[] indexes, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= indexes.length, "indexes too short for count");
+        Preconditions.checkArgument(ordinates.length == dimensions,
+                "number of ordinate arrays must equal the number of dimensions");
+        for (long[] a : ordinates) {
+            Preconditions.checkArgument(count <= a.length, "ordinates too short for count");
+        }
+    }
+
+    // untranspose
+    private long toIndex(long... transposedIndex) {
+        // b is expected to be BigEndian
+        return Interleaving.interleave(transposedIndex, masks, bits);
+    }
+
+    // overwrites the first dimensions elements of x
+    private void transposeLong(long index, long[] x) {
+        Interleaving.deinterleave(index, masks, bits, x);
+    }
+
     private long[] transposeLong(long index) {
         long[] x = new long[dimensions];
         transposeLong(index, x);
@@ -103,11 +368,11 @@ public final class SmallHilbertCurve {
     }
 
     public long maxOrdinate() {
-        return (1 << bits) - 1;
+        return (1L << bits) - 1;
     }
 
     public long maxIndex() {
-        return (1 << (bits * dimensions)) - 1;
+        return (1L << (bits * dimensions)) - 1;
     }
 
     /////////////////////////////////////////////////
@@ -187,42 +452,419 @@ public final class SmallHilbertCurve {
         // this is the implementation of the Perimiter Algorithm mentioned in README.md
         
         Box box = new Box(a, b);
-        List<Long> list = new ArrayList<>();
-        box.visitPerimeter(cell -> {
-            long n = index(cell);
-            list.add(n);
-        });
-        Collections.sort(list);
-        int i = 0;
+        // collect the perimeter indexes unboxed and radix sort them on the
+        // significant bits of the index
+        LongBuffer list = new LongBuffer();
+        long[] scratch = new long[dimensions];
+        box.visitPerimeter(cell -> list.add(index(cell, scratch)));
+        list.sort(bits * dimensions);
+        Ranges ranges = ranges(box, list.values(), list.size(), bufferSize);
+        return limit(ranges, maxRanges);
+    }
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}, the same as {@link #query(long[], long[])}, but encodes and
+     * sorts the perimeter cells of the box in parallel in the common
+     * {@link ForkJoinPool}. Worthwhile for large boxes only.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public Ranges queryParallel(long[] a, long[] b) {
+        return queryParallel(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and
+     * {@code b}, the same as {@link #query(long[], long[], int)}, but encodes
+     * and sorts the perimeter cells of the box in parallel in the common
+     * {@link ForkJoinPool}.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public Ranges queryParallel(long[] a, long[] b, int maxRanges) {
+        return queryParallel(a, b, maxRanges, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and
+     * {@code b}, the same as {@link #query(long[], long[], int)}, but encodes
+     * and sorts the perimeter cells of the box in parallel in the given pool.
+     * The faces of the perimeter (split further when large) are encoded and
+     * radix sorted by separate tasks and the sorted runs are merged before the
+     * ranges are built.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @param pool
+     *            pool to run the tasks in
+     * @return ranges
+     */
+    public Ranges queryParallel(long[] a, long[] b, int maxRanges, ForkJoinPool pool) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkNotNull(pool, "pool cannot be null");
+        int bufferSize = maxRanges == 0 ? 0 : Math.max(DEFAULT_BUFFER_SIZE, maxRanges);
+        Box box = new Box(a, b);
+        long[] indexes = pool.invoke(new PerimeterTask(this, box.perimeterFaces()));
+        return limit(ranges(box, indexes, indexes.length, bufferSize), maxRanges);
+    }
+
+    // builds the ranges from the sorted indexes of the perimeter cells of box
+    private Ranges ranges(Box box, long[] indexes, int size, int bufferSize) {
         Ranges ranges = new Ranges(bufferSize);
-        long rangeStart = -1;
-        while (true) {
-            if (i == list.size()) {
-                break;
-            }
-            if (rangeStart == -1) {
-                rangeStart = list.get(i);
-            }
-            while (i < list.size() - 1 && list.get(i + 1) == list.get(i) + 1) {
-                i++;
-            }
-            if (i == list.size() - 1) {
-                ranges.add(Range.create(rangeStart, list.get(i)));
-                break;
-            }
-            long[] point = point(list.get(i) + 1);
-            if (box.contains(point)) {
-                // is not on the perimeter (would have been caught in previous while loop)
-                // so is internal to the box which means the next value in the sorted hilbert
-                // curve indexes for the perimiter must be where it exits
-                i += 1;
-            } else {
-                ranges.add(Range.create(rangeStart, list.get(i)));
-                rangeStart = -1;
-                i++;
-            }
+        PerimeterRanges.forEach(box, indexes, size, 1, dimensions, (index, point) -> point(index[0], point),
+                (low, high) -> ranges.add(Range.create(indexes[low], indexes[high])));
+        return ranges;
+    }
+
+    int bits() {
+        return bits;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}, the same as {@link #query(long[], long[])}, but found by
+     * descending the curve's tree of orthants (sub-cubes) rather than by visiting
+     * the perimeter of the box. An orthant wholly inside the box is one range so
+     * the work is proportional to the number of ranges times {@code bits} rather
+     * than to the surface area of the box, which is much faster for large boxes.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public Ranges queryByDecomposition(long[] a, long[] b) {
+        return queryByDecomposition(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and
+     * {@code b} found as for {@link #queryByDecomposition(long[], long[])} and
+     * reduced to at most {@code maxRanges} ranges as for
+     * {@link #query(long[], long[], int)}.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public Ranges queryByDecomposition(long[] a, long[] b, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        return decompose(new Box(a, b), maxRanges, bits);
+    }
+
+    /**
+     * Returns index ranges exactly covering a region (see {@link Region}). The
+     * ranges are in increasing order and do not overlap.
+     * 
+     * @param region
+     *            the region
+     * @return ranges
+     */
+    public Ranges query(Region region) {
+        return query(region, 0);
+    }
+
+    /**
+     * Returns index ranges covering a region (see {@link Region}). If there are
+     * more than {@code maxRanges} exact ranges then ranges with minimal gaps are
+     * joined as for {@link #query(long[], long[], int)}.
+     * 
+     * @param region
+     *            the region
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public Ranges query(Region region, int maxRanges) {
+        return query(region, maxRanges, bits);
+    }
+
+    /**
+     * Returns index ranges covering a region (see {@link Region}) descending no
+     * further than {@code maxDepth} levels below the whole domain. An orthant at
+     * that depth that is partially in the region is covered by one range so the
+     * ranges may cover more than the region but fewer orthants are visited (an
+     * orthant at depth d has sides of 2<sup>bits - d</sup> cells). If there are
+     * more than {@code maxRanges} ranges then ranges with minimal gaps are joined
+     * as for {@link #query(long[], long[], int)}.
+     * 
+     * @param region
+     *            the region
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @param maxDepth
+     *            the maximum depth of the descent from 0 to {@code bits}. If
+     *            {@code bits} then the ranges are exact.
+     * @return ranges
+     */
+    public Ranges query(Region region, int maxRanges, int maxDepth) {
+        Preconditions.checkNotNull(region, "region cannot be null");
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(maxDepth >= 0 && maxDepth <= bits, "maxDepth must be between 0 and bits");
+        return decompose(region, maxRanges, maxDepth);
+    }
+
+    /**
+     * Returns the index ranges exactly covering a region (see {@link Region})
+     * lazily in increasing order (see {@link #queryIterator(long[], long[])}).
+     * 
+     * @param region
+     *            the region
+     * @return ranges in increasing order
+     */
+    public Iterator<Range> queryIterator(Region region) {
+        Preconditions.checkNotNull(region, "region cannot be null");
+        return new OrthantDecomposition(bits, dimensions, tables, region);
+    }
+
+    /**
+     * Returns the {@code k} stored items nearest to {@code point} (Euclidean
+     * distance between ordinates), nearest first. The items are read through
+     * {@code scanner} by Hilbert index range, for example with a range scan of
+     * a table keyed by Hilbert index.
+     * 
+     * <p>
+     * Sub-cubes of the curve are explored outward from {@code point} in order of
+     * their minimum distance from it. A sub-cube with sides of
+     * 2<sup>scanLevels</sup> cells is read with one range scan and larger ones
+     * are split. The search stops as soon as the k-th nearest item found is no
+     * further away than the nearest unread sub-cube, so no box size has to be
+     * guessed and only ranges that could hold one of the nearest items are read.
+     * Choose {@code scanLevels} so that such a sub-cube typically holds a few
+     * items (smaller means more, shorter scans).
+     * 
+     * @param point
+     *            the query point
+     * @param k
+     *            the number of items to find, at least 1
+     * @param scanLevels
+     *            sub-cubes with sides of 2<sup>scanLevels</sup> cells are read
+     *            with one range scan (0 to bits)
+     * @param scanner
+     *            reads the items in a range of indexes
+     * @param <T>
+     *            type of the stored items
+     * @return the nearest k items (fewer if fewer are stored) nearest first
+     */
+    public <T> List<Neighbour<T>> nearest(long[] point, int k, int scanLevels, RangeScanner<T> scanner) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(k > 0, "k must be at least 1");
+        Preconditions.checkArgument(scanLevels >= 0 && scanLevels <= bits, "scanLevels must be between 0 and bits");
+        Preconditions.checkNotNull(scanner, "scanner cannot be null");
+        return new NearestNeighbours<T>(bits, dimensions, tables, point, k, scanLevels, scanner).search();
+    }
+
+    // the ranges found by the orthant decomposition of region
+    private Ranges decompose(Region region, int maxRanges, int maxDepth) {
+        int bufferSize = maxRanges == 0 ? 0 : Math.max(DEFAULT_BUFFER_SIZE, maxRanges);
+        Ranges ranges = new Ranges(bufferSize);
+        new OrthantDecomposition(bits, dimensions, tables, region, maxDepth).addTo(ranges);
+        return limit(ranges, maxRanges);
+    }
+
+    /**
+     * Returns index ranges exactly covering the union of several boxes. Box i
+     * is bounded by the opposing vertices {@code a.get(i)} and {@code b.get(i)}
+     * and the boxes may overlap. The ranges are in increasing order and do not
+     * overlap or touch (an index covered by more than one box is in only one
+     * range).
+     * 
+     * @param a
+     *            one vertex of each box
+     * @param b
+     *            the opposing vertex of each box
+     * @return ranges
+     */
+    public Ranges queryUnion(List<long[]> a, List<long[]> b) {
+        return queryUnion(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the union of several boxes (see
+     * {@link #queryUnion(List, List)}). The boxes are decomposed together (see
+     * {@link #queryByDecomposition(long[], long[])}) so the exact ranges of the
+     * union are found once in increasing order and {@code maxRanges} applies to
+     * the union rather than to each box.
+     * 
+     * @param a
+     *            one vertex of each box
+     * @param b
+     *            the opposing vertex of each box
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public Ranges queryUnion(List<long[]> a, List<long[]> b, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(a.size() == b.size(), "a and b must have the same number of vertices");
+        List<Box> boxes = new ArrayList<>(a.size());
+        for (int i = 0; i < a.size(); i++) {
+            Preconditions.checkArgument(a.get(i).length == dimensions && b.get(i).length == dimensions);
+            boxes.add(new Box(a.get(i), b.get(i)));
         }
-        if (ranges.size() <= maxRanges) {
+        return decompose(new Union(boxes), maxRanges, bits);
+    }
+
+    /**
+     * Returns index ranges exactly covering the cells within Euclidean distance
+     * {@code radius} of {@code center} (measured between ordinates). The ranges
+     * are in increasing order and do not overlap. Compared to querying the
+     * bounding box of the ball the cells in the corners of the box are not
+     * covered (about half the box in 3 dimensions and more in higher
+     * dimensions).
+     * 
+     * @param center
+     *            the center of the ball
+     * @param radius
+     *            the radius of the ball, zero or more
+     * @return ranges
+     */
+    public Ranges queryBall(long[] center, double radius) {
+        return queryBall(center, radius, 0);
+    }
+
+    /**
+     * Returns index ranges covering the cells within Euclidean distance
+     * {@code radius} of {@code center} (see {@link #queryBall(long[], double)}).
+     * If there are more than {@code maxRanges} exact ranges then ranges with
+     * minimal gaps are joined as for {@link #query(long[], long[], int)}.
+     * 
+     * @param center
+     *            the center of the ball
+     * @param radius
+     *            the radius of the ball, zero or more
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public Ranges queryBall(long[] center, double radius, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        Preconditions.checkArgument(center.length == dimensions);
+        return decompose(new Ball(center, radius), maxRanges, bits);
+    }
+
+    /**
+     * Returns index ranges exactly covering the cells inside a polygon on a 2
+     * dimensional curve. Vertex i of the polygon is at ordinates
+     * {@code (x[i], y[i])} (fractional ordinates are allowed, for example
+     * scaled latitudes and longitudes) and the last vertex is joined to the
+     * first. Self-intersecting polygons use the even-odd rule and cells lying
+     * exactly on an edge may or may not be included. The ranges are in
+     * increasing order and do not overlap.
+     * 
+     * @param x
+     *            first ordinate of each vertex
+     * @param y
+     *            second ordinate of each vertex
+     * @return ranges
+     * @throws IllegalStateException
+     *             if the curve does not have 2 dimensions
+     */
+    public Ranges queryPolygon(double[] x, double[] y) {
+        return queryPolygon(x, y, 0);
+    }
+
+    /**
+     * Returns index ranges covering the cells inside a polygon on a 2
+     * dimensional curve (see {@link #queryPolygon(double[], double[])}). Square
+     * sub-regions of the curve are classified as inside, outside or on the
+     * boundary by testing them against the edges of the polygon so only the
+     * cells along the edges are tested individually. If there are more than
+     * {@code maxRanges} exact ranges then ranges with minimal gaps are joined
+     * as for {@link #query(long[], long[], int)}.
+     * 
+     * @param x
+     *            first ordinate of each vertex
+     * @param y
+     *            second ordinate of each vertex
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     * @throws IllegalStateException
+     *             if the curve does not have 2 dimensions
+     */
+    public Ranges queryPolygon(double[] x, double[] y, int maxRanges) {
+        Preconditions.checkArgument(maxRanges >= 0);
+        if (dimensions != 2) {
+            throw new IllegalStateException("polygon queries require 2 dimensions");
+        }
+        return decompose(new Polygon(x, y), maxRanges, bits);
+    }
+
+    /**
+     * Returns the index ranges exactly covering the region bounded by
+     * {@code a} and {@code b} (the same ranges as {@link #query(long[], long[])})
+     * lazily in increasing order. Each range is found as it is requested by
+     * descending the curve's tree of orthants only as far as needed, so the time
+     * to the first range does not depend on the size of the region and the
+     * memory used is proportional to {@code bits * dimensions} however many
+     * ranges there are. Useful for paging through the ranges of a large region
+     * or checking if any point is stored in a region.
+     * 
+     * <p>
+     * The returned iterator is not thread safe.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges in increasing order
+     */
+    public Iterator<Range> queryIterator(long[] a, long[] b) {
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        return new OrthantDecomposition(bits, dimensions, tables, new Box(a, b));
+    }
+
+    /**
+     * Returns the ranges of {@link #queryIterator(long[], long[])} as a
+     * sequential stream.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges in increasing order
+     */
+    public Stream<Range> queryStream(long[] a, long[] b) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(queryIterator(a, b),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private static Ranges limit(Ranges ranges, int maxRanges) {
+        if (maxRanges == 0 || ranges.size() <= maxRanges) {
             return ranges;
         } else {
             Ranges r = new Ranges(maxRanges);
@@ -247,7 +889,9 @@ public final class SmallHilbertCurve {
 
         public SmallHilbertCurve dimensions(int dimensions) {
             Preconditions.checkArgument(bits * dimensions <= 63, "bits * dimensions must be less than or equal to 63");
-            return new SmallHilbertCurve(bits, dimensions);
+            // use the faster table driven engine where available
+            StateTables tables = bits > 0 ? StateTables.forDimensions(dimensions) : null;
+            return new SmallHilbertCurve(bits, dimensions, tables);
         }
 
     }
@@ -0,0 +1,166 @@
+package org.davidmoten.hilbert;
+
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * A Hilbert curve of any size behind one interface. Indexes are held as
+ * {@link #words()} unsigned {@code long} words, most significant word first
+ * (one word when {@code bits * dimensions <= 64}). Obtain an instance with
+ * {@link HilbertCurve#auto()} which picks the fastest implementation for the
+ * number of bits and dimensions ({@link SmallHilbertCurve} up to 63 index
+ * bits, {@link MediumHilbertCurve} from 65 to 128 and {@link HilbertCurve}
+ * otherwise) so code written against this interface always gets the
+ * specialized conversions. Implementations are thread-safe.
+ */
+public interface SpaceFillingCurve {
+
+    int bits();
+
+    int dimensions();
+
+    /**
+     * Returns the number of {@code long} words in an index, ceil(bits *
+     * dimensions / 64).
+     * 
+     * @return number of words
+     */
+    int words();
+
+    long maxOrdinate();
+
+    WideIndex maxIndex();
+
+    /**
+     * Converts a point to its Hilbert curve index.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            {@link #maxOrdinate()}.
+     * @return index with {@link #words()} words
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions
+     */
+    WideIndex index(long... point);
+
+    /**
+     * Converts a point to its Hilbert curve index without allocating.
+     * {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code long}. Each ordinate can be between 0 and
+     *            {@link #maxOrdinate()}.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @param index
+     *            receives the {@link #words()} words of the index
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions or the other arrays have the wrong length
+     */
+    void index(long[] point, long[] scratch, long[] index);
+
+    /**
+     * Converts an index to a point.
+     * 
+     * @param index
+     *            index with {@link #words()} words
+     * @return the point
+     * @throws IllegalArgumentException
+     *             if index does not have {@link #words()} words
+     */
+    long[] point(WideIndex index);
+
+    /**
+     * Converts an index to a point without allocating.
+     * 
+     * @param index
+     *            the {@link #words()} words of the index
+     * @param point
+     *            receives the ordinates of the point
+     * @throws IllegalArgumentException
+     *             if index does not have length {@link #words()} or point does
+     *             not have length dimensions
+     */
+    void point(long[] index, long[] point);
+
+    /**
+     * Converts {@code count} points to indexes without allocating per point.
+     * 
+     * @param points
+     *            ordinates of the points, those of point k at positions
+     *            {@code k * dimensions} to {@code k * dimensions + dimensions - 1}
+     * @param indexes
+     *            receives the words of the indexes, those of index k at positions
+     *            {@code k * words} to {@code k * words + words - 1}
+     * @param count
+     *            number of points
+     */
+    void indexes(long[] points, long[] indexes, int count);
+
+    /**
+     * Converts {@code count} indexes to points without allocating per index. The
+     * inverse of {@link #indexes(long[], long[], int)}.
+     * 
+     * @param indexes
+     *            words of the indexes
+     * @param points
+     *            receives the ordinates of the points
+     * @param count
+     *            number of indexes
+     */
+    void points(long[] indexes, long[] points, int count);
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b} in increasing order.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    List<WideRange> query(long[] a, long[] b);
+
+    /**
+     * Returns at most {@code maxRanges} index ranges covering the region bounded
+     * by {@code a} and {@code b} in increasing order. The ranges may cover a
+     * larger region than the box because ranges with small gaps are joined.
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all
+     *            ranges are returned.
+     * @return ranges
+     */
+    List<WideRange> query(long[] a, long[] b, int maxRanges);
+
+    public static final class Builder {
+        private int bits;
+
+        Builder() {
+            // private instantiation
+        }
+
+        public Builder bits(int bits) {
+            Preconditions.checkArgument(bits > 0, "bits must be greater than zero");
+            Preconditions.checkArgument(bits < 64, "bits must be 63 or less");
+            this.bits = bits;
+            return this;
+        }
+
+        public SpaceFillingCurve dimensions(int dimensions) {
+            Preconditions.checkArgument(bits > 0, "bits must be set first");
+            Preconditions.checkArgument(dimensions > 1, "dimensions must be at least 2");
+            return SpaceFillingCurves.create(bits, dimensions);
+        }
+
+    }
+
+}
@@ -0,0 +1,240 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Selects and adapts the fastest curve implementation for a number of bits and
+ * dimensions to {@link SpaceFillingCurve}.
+ */
+final class SpaceFillingCurves {
+
+    // the precomputed tables of a SmallHilbertCurve are used at or below this
+    // many index bits (two 256KB tables)
+    static final int PRECOMPUTED_MAX_BITS = 16;
+
+    private SpaceFillingCurves() {
+        // prevent instantiation
+    }
+
+    static SpaceFillingCurve create(int bits, int dimensions) {
+        int length = bits * dimensions;
+        // TinyHilbertCurve is not used because with long ordinates converting
+        // to and from int costs what the int arithmetic saves
+        if (length <= PRECOMPUTED_MAX_BITS) {
+            return new Small(bits, dimensions, HilbertCurve.small().bits(bits).dimensions(dimensions).precomputed());
+        } else if (length <= 63) {
+            return new Small(bits, dimensions, HilbertCurve.small().bits(bits).dimensions(dimensions));
+        } else if (length > 64 && length <= 128) {
+            // two words (an index of exactly 64 bits is one word and HilbertCurve
+            // converts it as fast as MediumHilbertCurve)
+            return new Medium(bits, dimensions);
+        } else {
+            return new Wide(bits, dimensions);
+        }
+    }
+
+    private abstract static class Base implements SpaceFillingCurve {
+
+        final int bits;
+        final int dimensions;
+        final int words;
+
+        Base(int bits, int dimensions) {
+            this.bits = bits;
+            this.dimensions = dimensions;
+            this.words = (bits * dimensions + 63) / 64;
+        }
+
+        @Override
+        public final int bits() {
+            return bits;
+        }
+
+        @Override
+        public final int dimensions() {
+            return dimensions;
+        }
+
+        @Override
+        public final int words() {
+            return words;
+        }
+
+        @Override
+        public final long maxOrdinate() {
+            return (1L << bits) - 1;
+        }
+
+        @Override
+        public final WideIndex maxIndex() {
+            long[] index = new long[words];
+            for (int i = 0; i < words; i++) {
+                index[i] = -1L;
+            }
+            int unused = words * 64 - bits * dimensions;
+            index[0] >>>= unused;
+            return WideIndex.wrap(index);
+        }
+
+        @Override
+        public final WideIndex index(long... point) {
+            long[] index = new long[words];
+            index(point, new long[dimensions], index);
+            return WideIndex.wrap(index);
+        }
+
+        @Override
+        public final long[] point(WideIndex index) {
+            Preconditions.checkArgument(index.size() == words, "index must have words() words");
+            long[] x = new long[dimensions];
+            point(index.toWords(), x);
+            return x;
+        }
+
+        @Override
+        public void indexes(long[] points, long[] indexes, int count) {
+            checkBatch(points, indexes, count);
+            long[] x = new long[dimensions];
+            long[] scratch = new long[dimensions];
+            long[] index = new long[words];
+            for (int j = 0; j < count; j++) {
+                System.arraycopy(points, j * dimensions, x, 0, dimensions);
+                index(x, scratch, index);
+                System.arraycopy(index, 0, indexes, j * words, words);
+            }
+        }
+
+        @Override
+        public void points(long[] indexes, long[] points, int count) {
+            checkBatch(points, indexes, count);
+            long[] x = new long[dimensions];
+            long[] index = new long[words];
+            for (int j = 0; j < count; j++) {
+                System.arraycopy(indexes, j * words, index, 0, words);
+                point(index, x);
+                System.arraycopy(x, 0, points, j * dimensions, dimensions);
+            }
+        }
+
+        final void checkBatch(long[] points, long[] indexes, int count) {
+            Preconditions.checkArgument(count >= 0, "count cannot be negative");
+            Preconditions.checkArgument((long) count * words <= indexes.length, "indexes too short for count");
+            Preconditions.checkArgument((long) count * dimensions <= points.length, "points too short for count");
+        }
+
+        @Override
+        public final List<WideRange> query(long[] a, long[] b) {
+            return query(a, b, 0);
+        }
+
+    }
+
+    private static final class Small extends Base {
+
+        private final SmallHilbertCurve curve;
+
+        Small(int bits, int dimensions, SmallHilbertCurve curve) {
+            super(bits, dimensions);
+            this.curve = curve;
+        }
+
+        @Override
+        public void index(long[] point, long[] scratch, long[] index) {
+            Preconditions.checkArgument(index.length == 1, "index must have length 1");
+            index[0] = curve.index(point, scratch);
+        }
+
+        @Override
+        public void point(long[] index, long[] point) {
+            Preconditions.checkArgument(index.length == 1, "index must have length 1");
+            curve.point(index[0], point);
+        }
+
+        @Override
+        public void indexes(long[] points, long[] indexes, int count) {
+            curve.indexes(points, indexes, count);
+        }
+
+        @Override
+        public void points(long[] indexes, long[] points, int count) {
+            curve.points(indexes, points, count);
+        }
+
+        @Override
+        public List<WideRange> query(long[] a, long[] b, int maxRanges) {
+            List<WideRange> list = new ArrayList<>();
+            for (Range r : curve.query(a, b, maxRanges)) {
+                list.add(WideRange.create(WideIndex.wrap(new long[] { r.low() }),
+                        WideIndex.wrap(new long[] { r.high() })));
+            }
+            return list;
+        }
+
+    }
+
+    private static final class Medium extends Base {
+
+        private final MediumHilbertCurve curve;
+
+        Medium(int bits, int dimensions) {
+            super(bits, dimensions);
+            this.curve = HilbertCurve.medium().bits(bits).dimensions(dimensions);
+        }
+
+        @Override
+        public void index(long[] point, long[] scratch, long[] index) {
+            Preconditions.checkArgument(index.length == 2, "index must have length 2");
+            curve.index(point, scratch, index);
+        }
+
+        @Override
+        public void point(long[] index, long[] point) {
+            Preconditions.checkArgument(index.length == 2, "index must have length 2");
+            curve.point(index[0], index[1], point);
+        }
+
+        @Override
+        public List<WideRange> query(long[] a, long[] b, int maxRanges) {
+            List<WideRange> list = new ArrayList<>();
+            for (Range128 r : curve.query(a, b, maxRanges)) {
+                list.add(WideRange.create(toWide(r.low()), toWide(r.high())));
+            }
+            return list;
+        }
+
+        private static WideIndex toWide(Index128 index) {
+            return WideIndex.wrap(new long[] { index.hi(), index.lo() });
+        }
+
+    }
+
+    private static final class Wide extends Base {
+
+        private final HilbertCurve curve;
+
+        Wide(int bits, int dimensions) {
+            super(bits, dimensions);
+            this.curve = HilbertCurve.bits(bits).dimensions(dimensions);
+        }
+
+        @Override
+        public void index(long[] point, long[] scratch, long[] index) {
+            curve.index(point, scratch, index);
+        }
+
+        @Override
+        public void point(long[] index, long[] point) {
+            curve.point(index, point);
+        }
+
+        @Override
+        public List<WideRange> query(long[] a, long[] b, int maxRanges) {
+            return curve.query(a, b, maxRanges);
+        }
+
+    }
+
+}
@@ -0,0 +1,360 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed state transition tables that convert between points and Hilbert
+ * indexes several bits per dimension at a time. Produces exactly the same
+ * indexes as Skilling's algorithm (the tables are generated from
+ * {@link HilbertState}).
+ *
+ * <p>
+ * An encode table entry is addressed by the current state and the next
+ * {@code chunk} bits of each ordinate concatenated (dimension 0 most
+ * significant) and holds the next state and the next {@code chunk * dimensions}
+ * bits of the index. Decode tables are the inverse.
+ */
+final class StateTables {
+
+    private final int dimensions;
+
+    // maximum number of bits per dimension handled in one step
+    private final int chunk;
+
+    // indexed by number of bits per dimension handled in the step (1..chunk)
+    private final int[][] encode;
+    private final int[][] decode;
+
+    private StateTables(int dimensions, int chunk) {
+        this.dimensions = dimensions;
+        this.chunk = chunk;
+        List<HilbertState> states = states(dimensions);
+        this.encode = new int[chunk + 1][];
+        this.decode = new int[chunk + 1][];
+        for (int k = 1; k <= chunk; k++) {
+            build(states, k);
+        }
+    }
+
+    /**
+     * Returns the tables for the given number of dimensions or null if tables
+     * are not available for that number of dimensions.
+     *
+     * @param dimensions
+     *            number of dimensions
+     * @return tables or null
+     */
+    static StateTables forDimensions(int dimensions) {
+        if (dimensions == 2) {
+            return TwoDimensionsHolder.INSTANCE;
+        } else if (dimensions == 3) {
+            return ThreeDimensionsHolder.INSTANCE;
+        } else {
+            return null;
+        }
+    }
+
+    private static final class TwoDimensionsHolder {
+        // a byte of index per step
+        static final StateTables INSTANCE = new StateTables(2, 4);
+    }
+
+    private static final class ThreeDimensionsHolder {
+        static final StateTables INSTANCE = new StateTables(3, 3);
+    }
+
+    long index(int bits, long[] point) {
+        return index(bits, point, 0);
+    }
+
+    // reads the ordinates from point[offset] to point[offset + dimensions - 1]
+    // (the key is assembled without a loop over dimensions so the JIT does not
+    // have to unroll one)
+    long index(int bits, long[] point, int offset) {
+        long index = 0;
+        int state = 0;
+        int shift = bits;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            shift -= k;
+            int width = k * dimensions;
+            long mask = (1L << k) - 1;
+            int key;
+            if (dimensions == 2) {
+                key = (int) (((point[offset] >>> shift) & mask) << k | ((point[offset + 1] >>> shift) & mask));
+            } else {
+                key = (int) (((point[offset] >>> shift) & mask) << (k << 1)
+                        | ((point[offset + 1] >>> shift) & mask) << k | ((point[offset + 2] >>> shift) & mask));
+            }
+            int entry = encode[k][(state << width) | key];
+            index = (index << width) | (entry & ((1 << width) - 1));
+            state = entry >>> width;
+            k = chunk;
+        }
+        return index;
+    }
+
+    // reads the ordinates from ordinates[0][j] to ordinates[dimensions - 1][j]
+    long index(int bits, long[][] ordinates, int j) {
+        long index = 0;
+        int state = 0;
+        int shift = bits;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            shift -= k;
+            int width = k * dimensions;
+            long mask = (1L << k) - 1;
+            int key;
+            if (dimensions == 2) {
+                key = (int) (((ordinates[0][j] >>> shift) & mask) << k | ((ordinates[1][j] >>> shift) & mask));
+            } else {
+                key = (int) (((ordinates[0][j] >>> shift) & mask) << (k << 1)
+                        | ((ordinates[1][j] >>> shift) & mask) << k | ((ordinates[2][j] >>> shift) & mask));
+            }
+            int entry = encode[k][(state << width) | key];
+            index = (index << width) | (entry & ((1 << width) - 1));
+            state = entry >>> width;
+            k = chunk;
+        }
+        return index;
+    }
+
+    /**
+     * Compares two points in Hilbert order, walking the levels from the most
+     * significant and stopping at the first chunk where the points differ.
+     * 
+     * @param bits
+     *            bits per dimension
+     * @param a
+     *            holds the first point from a[aOffset]
+     * @param aOffset
+     *            offset of the first point
+     * @param b
+     *            holds the second point from b[bOffset]
+     * @param bOffset
+     *            offset of the second point
+     * @return negative, zero or positive as the index of a is less than, equal
+     *         to or greater than the index of b
+     */
+    int compare(int bits, long[] a, int aOffset, long[] b, int bOffset) {
+        int state = 0;
+        int shift = bits;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            shift -= k;
+            int width = k * dimensions;
+            long mask = (1L << k) - 1;
+            int keyA = key(a, aOffset, shift, k, mask);
+            int keyB = key(b, bOffset, shift, k, mask);
+            int entryA = encode[k][(state << width) | keyA];
+            if (keyA != keyB) {
+                int entryB = encode[k][(state << width) | keyB];
+                int digits = (1 << width) - 1;
+                return Integer.compare(entryA & digits, entryB & digits);
+            }
+            state = entryA >>> width;
+            k = chunk;
+        }
+        return 0;
+    }
+
+    private int key(long[] point, int offset, int shift, int k, long mask) {
+        if (dimensions == 2) {
+            return (int) (((point[offset] >>> shift) & mask) << k | ((point[offset + 1] >>> shift) & mask));
+        } else {
+            return (int) (((point[offset] >>> shift) & mask) << (k << 1) | ((point[offset + 1] >>> shift) & mask) << k
+                    | ((point[offset + 2] >>> shift) & mask));
+        }
+    }
+
+    /**
+     * Decodes one level. Returns the next state shifted left by
+     * {@code dimensions} bits combined with the raw bits of the level (bit
+     * {@code dimensions - 1 - i} is the bit of dimension i). State 0 is the
+     * initial state.
+     * 
+     * @param state
+     *            current state
+     * @param digit
+     *            the {@code dimensions} bits of the index at this level
+     * @return (next state &lt;&lt; dimensions) | raw bits
+     */
+    int decodeLevel(int state, int digit) {
+        return decode[1][(state << dimensions) | digit];
+    }
+
+    // int version of index(int, long[], int) for TinyHilbertCurve
+    int index(int bits, int[] point, int offset) {
+        int index = 0;
+        int state = 0;
+        int shift = bits;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            shift -= k;
+            int width = k * dimensions;
+            int mask = (1 << k) - 1;
+            int key;
+            if (dimensions == 2) {
+                key = ((point[offset] >>> shift) & mask) << k | ((point[offset + 1] >>> shift) & mask);
+            } else {
+                key = ((point[offset] >>> shift) & mask) << (k << 1) | ((point[offset + 1] >>> shift) & mask) << k
+                        | ((point[offset + 2] >>> shift) & mask);
+            }
+            int entry = encode[k][(state << width) | key];
+            index = (index << width) | (entry & ((1 << width) - 1));
+            state = entry >>> width;
+            k = chunk;
+        }
+        return index;
+    }
+
+    void point(int bits, long index, long[] x) {
+        point(bits, index, x, 0);
+    }
+
+    // writes the ordinates to x[offset] to x[offset + dimensions - 1]
+    void point(int bits, long index, long[] x, int offset) {
+        for (int i = 0; i < dimensions; i++) {
+            x[offset + i] = 0;
+        }
+        int state = 0;
+        int shift = bits * dimensions;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            int width = k * dimensions;
+            shift -= width;
+            int digits = (int) ((index >>> shift) & ((1 << width) - 1));
+            int entry = decode[k][(state << width) | digits];
+            int mask = (1 << k) - 1;
+            for (int i = 0; i < dimensions; i++) {
+                x[offset + i] = (x[offset + i] << k) | ((entry >>> ((dimensions - 1 - i) * k)) & mask);
+            }
+            state = entry >>> width;
+            k = chunk;
+        }
+    }
+
+    // int version of point(int, long, long[], int) for TinyHilbertCurve
+    void point(int bits, int index, int[] x, int offset) {
+        for (int i = 0; i < dimensions; i++) {
+            x[offset + i] = 0;
+        }
+        int state = 0;
+        int shift = bits * dimensions;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            int width = k * dimensions;
+            shift -= width;
+            int digits = (index >>> shift) & ((1 << width) - 1);
+            int entry = decode[k][(state << width) | digits];
+            int mask = (1 << k) - 1;
+            for (int i = 0; i < dimensions; i++) {
+                x[offset + i] = (x[offset + i] << k) | ((entry >>> ((dimensions - 1 - i) * k)) & mask);
+            }
+            state = entry >>> width;
+            k = chunk;
+        }
+    }
+
+    // writes the ordinates to ordinates[0][j] to ordinates[dimensions - 1][j]
+    void point(int bits, long index, long[][] ordinates, int j) {
+        for (int i = 0; i < dimensions; i++) {
+            ordinates[i][j] = 0;
+        }
+        int state = 0;
+        int shift = bits * dimensions;
+        int k = bits % chunk;
+        if (k == 0) {
+            k = chunk;
+        }
+        while (shift > 0) {
+            int width = k * dimensions;
+            shift -= width;
+            int digits = (int) ((index >>> shift) & ((1 << width) - 1));
+            int entry = decode[k][(state << width) | digits];
+            int mask = (1 << k) - 1;
+            for (int i = 0; i < dimensions; i++) {
+                ordinates[i][j] = (ordinates[i][j] << k) | ((entry >>> ((dimensions - 1 - i) * k)) & mask);
+            }
+            state = entry >>> width;
+            k = chunk;
+        }
+    }
+
+    private void build(List<HilbertState> states, int k) {
+        int width = k * dimensions;
+        int[] enc = new int[states.size() << width];
+        int[] dec = new int[states.size() << width];
+        Map<HilbertState, Integer> ids = ids(states);
+        for (int s = 0; s < states.size(); s++) {
+            for (int key = 0; key < 1 << width; key++) {
+                HilbertState state = states.get(s).copy();
+                int digits = 0;
+                for (int level = k - 1; level >= 0; level--) {
+                    long raw = 0;
+                    for (int i = 0; i < dimensions; i++) {
+                        // bit of dimension i at this level of the key
+                        int bit = (key >>> ((dimensions - 1 - i) * k + level)) & 1;
+                        raw |= (long) bit << i;
+                    }
+                    digits = (digits << dimensions) | (int) state.encode(raw);
+                }
+                int next = ids.get(state);
+                enc[(s << width) | key] = (next << width) | digits;
+                dec[(s << width) | digits] = (next << width) | key;
+            }
+        }
+        encode[k] = enc;
+        decode[k] = dec;
+    }
+
+    // all states reachable from the initial state, the initial state first
+    private static List<HilbertState> states(int dimensions) {
+        List<HilbertState> states = new ArrayList<>();
+        Map<HilbertState, Integer> ids = new HashMap<>();
+        HilbertState initial = new HilbertState(dimensions);
+        states.add(initial);
+        ids.put(initial, 0);
+        for (int s = 0; s < states.size(); s++) {
+            for (long raw = 0; raw < 1 << dimensions; raw++) {
+                HilbertState child = states.get(s).copy();
+                child.encode(raw);
+                if (!ids.containsKey(child)) {
+                    ids.put(child, states.size());
+                    states.add(child);
+                }
+            }
+        }
+        return states;
+    }
+
+    private static Map<HilbertState, Integer> ids(List<HilbertState> states) {
+        Map<HilbertState, Integer> ids = new HashMap<>();
+        for (int i = 0; i < states.size(); i++) {
+            ids.put(states.get(i), i);
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,321 @@
+package org.davidmoten.hilbert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Converts between Hilbert index ({@code int}) and N-dimensional points with
+ * {@code int} ordinates where {@code bits * dimensions <= 31}. Keys and
+ * ordinates take half the memory of {@link SmallHilbertCurve} and can be stored
+ * in {@code int[]} columns. Produces the same indexes as
+ * {@link SmallHilbertCurve} with the same bits and dimensions.
+ * 
+ * <p>
+ * Note: This algorithm is derived from work done by John Skilling and published
+ * in "Programming the Hilbert curve". (c) 2004 American Institute of Physics.
+ */
+public final class TinyHilbertCurve {
+
+    private final int bits;
+    private final int dimensions;
+    // precomputed state transition tables (only for 2 and 3 dimensions, null
+    // otherwise)
+    private final StateTables tables;
+    // index bits belonging to each dimension
+    private final long[] masks;
+    // used for queries
+    private final SmallHilbertCurve small;
+
+    private TinyHilbertCurve(int bits, int dimensions, StateTables tables) {
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.tables = tables;
+        this.masks = Interleaving.masks(bits, dimensions);
+        this.small = HilbertCurve.small().bits(bits).dimensions(dimensions);
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index.
+     * 
+     * @param point
+     *            an array of {@code int}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @return index in the range 0 to 2<sup>bits * dimensions</sup> - 1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions.
+     */
+    public int index(int... point) {
+        Preconditions.checkArgument(point.length == dimensions);
+        if (tables != null) {
+            return tables.index(bits, point, 0);
+        }
+        int[] x = new int[dimensions];
+        System.arraycopy(point, 0, x, 0, dimensions);
+        return toIndex(axesToTranspose(bits, x, 0, dimensions));
+    }
+
+    /**
+     * Converts a point to its Hilbert curve index without allocating.
+     * {@code point} is not modified.
+     * 
+     * @param point
+     *            an array of {@code int}. Each ordinate can be between 0 and
+     *            2<sup>bits</sup>-1.
+     * @param scratch
+     *            working space of length at least dimensions
+     * @return index in the range 0 to 2<sup>bits * dimensions</sup> - 1
+     * @throws IllegalArgumentException
+     *             if length of point array is not equal to the number of
+     *             dimensions or scratch is too short
+     */
+    public int index(int[] point, int[] scratch) {
+        Preconditions.checkArgument(point.length == dimensions);
+        Preconditions.checkArgument(scratch.length >= dimensions, "scratch must have length at least dimensions");
+        if (tables != null) {
+            return tables.index(bits, point, 0);
+        }
+        System.arraycopy(point, 0, scratch, 0, dimensions);
+        return toIndex(axesToTranspose(bits, scratch, 0, dimensions));
+    }
+
+    /**
+     * Converts an index (distance along the Hilbert Curve from 0) to a point.
+     * 
+     * @param index
+     *            index along the Hilbert Curve from 0. Maximum value 2
+     *            <sup>bits * dimensions</sup>-1.
+     * @return array of ints being the point
+     */
+    public int[] point(int index) {
+        int[] x = new int[dimensions];
+        point(index, x);
+        return x;
+    }
+
+    public void point(int index, int[] x) {
+        Preconditions.checkArgument(x.length == dimensions);
+        if (tables != null) {
+            tables.point(bits, index, x, 0);
+            return;
+        }
+        transpose(index, x, 0);
+        transposedIndexToPoint(bits, x, 0, dimensions);
+    }
+
+    /**
+     * Converts {@code count} points to their Hilbert curve indexes. The points
+     * are read from the flat array {@code points} where the ordinates of the j-th
+     * point are {@code points[j * dimensions]} to
+     * {@code points[j * dimensions + dimensions - 1]}. No allocation happens per
+     * point.
+     * 
+     * @param points
+     *            ordinates of the points, interleaved
+     * @param indexes
+     *            receives the index of the j-th point at position j
+     * @param count
+     *            number of points to convert
+     * @throws IllegalArgumentException
+     *             if count is negative or the arrays are too short
+     */
+    public void indexes(int[] points, int[] indexes, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= indexes.length, "indexes too short for count");
+        Preconditions.checkArgument((long) count * dimensions <= points.length, "points too short for count");
+        if (tables != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                indexes[j] = tables.index(bits, points, offset);
+            }
+        } else {
+            int[] x = new int[dimensions];
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                System.arraycopy(points, offset, x, 0, dimensions);
+                indexes[j] = toIndex(axesToTranspose(bits, x, 0, dimensions));
+            }
+        }
+    }
+
+    /**
+     * Converts {@code count} indexes to points. The ordinates of the point for
+     * {@code indexes[j]} are written to {@code points[j * dimensions]} to
+     * {@code points[j * dimensions + dimensions - 1]}. No allocation happens per
+     * point.
+     * 
+     * @param indexes
+     *            indexes along the Hilbert Curve
+     * @param points
+     *            receives the ordinates of the points, interleaved
+     * @param count
+     *            number of indexes to convert
+     * @throws IllegalArgumentException
+     *             if count is negative or the arrays are too short
+     */
+    public void points(int[] indexes, int[] points, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= indexes.length, "indexes too short for count");
+        Preconditions.checkArgument((long) count * dimensions <= points.length, "points too short for count");
+        if (tables != null) {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                tables.point(bits, indexes[j], points, offset);
+            }
+        } else {
+            for (int j = 0, offset = 0; j < count; j++, offset += dimensions) {
+                transpose(indexes[j], points, offset);
+                transposedIndexToPoint(bits, points, offset, dimensions);
+            }
+        }
+    }
+
+    public int maxOrdinate() {
+        return (1 << bits) - 1;
+    }
+
+    public int maxIndex() {
+        return (1 << (bits * dimensions)) - 1;
+    }
+
+    // untranspose
+    private int toIndex(int[] transposedIndex) {
+        long b = 0;
+        for (int j = 0; j < dimensions; j++) {
+            b |= Interleaving.expand(transposedIndex[j], masks[j]);
+        }
+        return (int) b;
+    }
+
+    // overwrites x[offset] to x[offset + dimensions - 1]
+    private void transpose(int index, int[] x, int offset) {
+        for (int j = 0; j < dimensions; j++) {
+            x[offset + j] = (int) Interleaving.compress(index, masks[j]);
+        }
+    }
+
+    // int versions of HilbertCurve.axesToTranspose and transposedIndexToPoint
+    // acting on x[offset] to x[offset + n - 1]
+
+    private static int[] axesToTranspose(int bits, int[] x, int offset, int n) {
+        int p, m, t;
+        int i, s;
+        // Inverse undo (branch free, m is all ones to invert and zero to
+        // exchange)
+        for (s = bits - 1; s > 0; s--) {
+            p = (1 << s) - 1;
+            for (i = offset; i < offset + n; i++) {
+                m = -((x[i] >>> s) & 1);
+                x[offset] ^= p & m; // invert
+                t = (x[offset] ^ x[i]) & p & ~m;
+                x[offset] ^= t;
+                x[i] ^= t;
+            }
+        } // exchange
+          // Gray encode
+        for (i = offset + 1; i < offset + n; i++)
+            x[i] ^= x[i - 1];
+        t = 0;
+        for (s = bits - 1; s > 0; s--)
+            t ^= ((1 << s) - 1) & -((x[offset + n - 1] >>> s) & 1);
+        for (i = offset; i < offset + n; i++)
+            x[i] ^= t;
+        return x;
+    }
+
+    private static void transposedIndexToPoint(int bits, int[] x, int offset, int n) {
+        int p, m, t;
+        int i, s;
+        // Gray decode by H ^ (H/2)
+        t = x[offset + n - 1] >> 1;
+        for (i = offset + n - 1; i > offset; i--)
+            x[i] ^= x[i - 1];
+        x[offset] ^= t;
+        // Undo excess work
+        for (s = 1; s < bits; s++) {
+            p = (1 << s) - 1;
+            for (i = offset + n - 1; i >= offset; i--) {
+                m = -((x[i] >>> s) & 1);
+                x[offset] ^= p & m; // invert
+                t = (x[offset] ^ x[i]) & p & ~m;
+                x[offset] ^= t;
+                x[i] ^= t;
+            }
+        } // exchange
+    }
+
+    /////////////////////////////////////////////////
+    // Query support
+    ////////////////////////////////////////////////
+
+    /**
+     * Returns index ranges exactly covering the region bounded by {@code a} and
+     * {@code b}. The list will be in increasing order of the range bounds (there
+     * should be no overlaps).
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @return ranges
+     */
+    public List<IntRange> query(int[] a, int[] b) {
+        return query(a, b, 0);
+    }
+
+    /**
+     * Returns index ranges covering the region bounded by {@code a} and {@code b}.
+     * The list will be in increasing order of the range bounds (there should be no
+     * overlaps). The index ranges may cover a larger region than the search box
+     * because the set of exact covering ranges will have been reduced by joining
+     * ranges with minimal gaps (as for
+     * {@link SmallHilbertCurve#query(long[], long[], int)}).
+     * 
+     * @param a
+     *            one vertex of the region
+     * @param b
+     *            the opposing vertex to a
+     * @param maxRanges
+     *            the maximum number of ranges to be returned. If 0 then all ranges
+     *            are returned.
+     * @return ranges
+     */
+    public List<IntRange> query(int[] a, int[] b, int maxRanges) {
+        Preconditions.checkArgument(a.length == dimensions && b.length == dimensions);
+        Ranges ranges = small.query(toLongs(a), toLongs(b), maxRanges);
+        List<IntRange> list = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            list.add(IntRange.create((int) range.low(), (int) range.high()));
+        }
+        return list;
+    }
+
+    private static long[] toLongs(int[] a) {
+        long[] x = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            x[i] = a[i];
+        }
+        return x;
+    }
+
+    public static final class Builder {
+        private int bits;
+
+        Builder() {
+            // private instantiation
+        }
+
+        public Builder bits(int bits) {
+            Preconditions.checkArgument(bits > 0, "bits must be greater than zero");
+            this.bits = bits;
+            return this;
+        }
+
+        public TinyHilbertCurve dimensions(int dimensions) {
+            Preconditions.checkArgument(bits > 0, "bits must be set first");
+            Preconditions.checkArgument(dimensions > 1, "dimensions must be at least 2");
+            Preconditions.checkArgument(bits * dimensions <= 31, "bits * dimensions must be less than or equal to 31");
+            // use the faster table driven engine where available
+            return new TinyHilbertCurve(bits, dimensions, StateTables.forDimensions(dimensions));
+        }
+
+    }
+
+}
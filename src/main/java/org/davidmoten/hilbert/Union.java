@@ -0,0 +1,34 @@
+package org.davidmoten.hilbert;
+
+import java.util.List;
+
+/**
+ * The union of several regions (for example the boxes of a multi-box query).
+ * An orthant is inside the union if it is inside any one of the regions and
+ * outside if it is outside all of them. An orthant covered only by several
+ * regions together is partial so is split until its parts are inside single
+ * regions.
+ */
+final class Union implements Region {
+
+    private final List<? extends Region> regions;
+
+    Union(List<? extends Region> regions) {
+        this.regions = regions;
+    }
+
+    @Override
+    public Relation relate(long[] mins, long[] maxes) {
+        boolean outside = true;
+        for (Region region : regions) {
+            Relation r = region.relate(mins, maxes);
+            if (r == Relation.INSIDE) {
+                return Relation.INSIDE;
+            } else if (r == Relation.PARTIAL) {
+                outside = false;
+            }
+        }
+        return outside ? Relation.OUTSIDE : Relation.PARTIAL;
+    }
+
+}
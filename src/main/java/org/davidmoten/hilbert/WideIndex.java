@@ -0,0 +1,137 @@
+package org.davidmoten.hilbert;
+
+import java.math.BigInteger;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * An unsigned Hilbert index of any length held as {@code long} words, most
+ * significant word first. Immutable. Ordering and equality are those of the
+ * numeric value (leading zero words are not significant).
+ */
+public final class WideIndex implements Comparable<WideIndex> {
+
+    private final long[] words;
+
+    private WideIndex(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Returns an index with the given words (copied).
+     * 
+     * @param words
+     *            most significant word first, each word unsigned
+     * @return index
+     */
+    public static WideIndex create(long... words) {
+        Preconditions.checkArgument(words.length > 0, "words cannot be empty");
+        return new WideIndex(words.clone());
+    }
+
+    // does not copy words
+    static WideIndex wrap(long[] words) {
+        return new WideIndex(words);
+    }
+
+    /**
+     * Returns the number of words.
+     * 
+     * @return number of words
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Returns the word at position {@code i} (0 is the most significant word).
+     * 
+     * @param i
+     *            position of the word
+     * @return the word
+     */
+    public long word(int i) {
+        return words[i];
+    }
+
+    /**
+     * Returns a copy of the words, most significant first.
+     * 
+     * @return words
+     */
+    public long[] toWords() {
+        return words.clone();
+    }
+
+    // this minus other (both the same size and this not less than other)
+    WideIndex minus(WideIndex other) {
+        long[] d = new long[words.length];
+        long borrow = 0;
+        for (int i = words.length - 1; i >= 0; i--) {
+            long x = words[i];
+            long y = other.words[i];
+            d[i] = x - y - borrow;
+            borrow = Long.compareUnsigned(x, y) < 0 || (borrow == 1 && x == y) ? 1 : 0;
+        }
+        return new WideIndex(d);
+    }
+
+    public BigInteger toBigInteger() {
+        byte[] b = new byte[words.length * 8];
+        for (int i = 0; i < words.length; i++) {
+            long w = words[i];
+            for (int k = 7; k >= 0; k--) {
+                b[i * 8 + k] = (byte) w;
+                w >>>= 8;
+            }
+        }
+        return new BigInteger(1, b);
+    }
+
+    @Override
+    public int compareTo(WideIndex other) {
+        int n = Math.max(words.length, other.words.length);
+        for (int i = 0; i < n; i++) {
+            int c = Long.compareUnsigned(wordFromEnd(n - 1 - i), other.wordFromEnd(n - 1 - i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    // word of significance w (0 is least significant), zero beyond the top
+    private long wordFromEnd(int w) {
+        return w < words.length ? words[words.length - 1 - w] : 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int i = 0;
+        while (i < words.length - 1 && words[i] == 0) {
+            i++;
+        }
+        int result = 1;
+        for (; i < words.length; i++) {
+            result = 31 * result + (int) (words[i] ^ (words[i] >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        return compareTo((WideIndex) obj) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return toBigInteger().toString();
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.davidmoten.hilbert;
+
+/**
+ * An inclusive range of {@link WideIndex} Hilbert indexes.
+ */
+public final class WideRange {
+
+    private final WideIndex low;
+    private final WideIndex high;
+
+    private WideRange(WideIndex low, WideIndex high) {
+        if (low.compareTo(high) <= 0) {
+            this.low = low;
+            this.high = high;
+        } else {
+            this.low = high;
+            this.high = low;
+        }
+    }
+
+    public static WideRange create(WideIndex low, WideIndex high) {
+        return new WideRange(low, high);
+    }
+
+    public static WideRange create(WideIndex value) {
+        return new WideRange(value, value);
+    }
+
+    public WideIndex low() {
+        return low;
+    }
+
+    public WideIndex high() {
+        return high;
+    }
+
+    public boolean contains(WideIndex value) {
+        return low.compareTo(value) <= 0 && value.compareTo(high) <= 0;
+    }
+
+    public WideRange join(WideRange range) {
+        WideIndex min = low.compareTo(range.low) <= 0 ? low : range.low;
+        WideIndex max = high.compareTo(range.high) >= 0 ? high : range.high;
+        return new WideRange(min, max);
+    }
+
+    @Override
+    public String toString() {
+        return "WideRange [low=" + low + ", high=" + high + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + high.hashCode();
+        result = prime * result + low.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        WideRange other = (WideRange) obj;
+        return low.equals(other.low) && high.equals(other.high);
+    }
+
+}
@@ -0,0 +1,313 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Moves bits between the transposed form of a Hilbert index (one {@code long}
+ * per dimension) and an index of any length held as {@code long} words, a word
+ * at a time.
+ *
+ * <p>
+ * The bit at level l of dimension j is at position
+ * {@code l * dimensions + dimensions - 1 - j} of the index (as for
+ * {@link Interleaving}). For a fixed dimension the positions increase with the
+ * level so the bits of a dimension that land in one word come from a contiguous
+ * run of levels. Each (word, dimension) pair with bits in the word is therefore
+ * one {@link Interleaving#expand(long, long)} or
+ * {@link Interleaving#compress(long, long)} of the shifted ordinate, so a word
+ * costs one operation per contributing dimension rather than one per bit.
+ *
+ * <p>
+ * With many dimensions each dimension contributes only a bit or two to a word
+ * so instead blocks of 64 dimensions are moved with a {@link BitMatrix}
+ * transpose. After the transpose row l of a block holds the bits of level l of
+ * the 64 dimensions in index order, which is a contiguous run of bits of the
+ * index, so the cost scales with the number of words rather than the number of
+ * bits.
+ */
+final class WordInterleaving {
+
+    private final int bits;
+    private final int dimensions;
+    private final int words;
+    private final boolean transpose;
+    // bits rounded up to a power of two (the width of the transposed blocks)
+    private final int width;
+    // entries for word w (counting from the least significant word) are at
+    // positions start[w] to start[w + 1] - 1 of dims, masks and shifts
+    private final int[] start;
+    private final int[] dims;
+    // positions of the bits of the dimension in the word
+    private final long[] masks;
+    // level of the first bit of the dimension in the word
+    private final int[] shifts;
+
+    WordInterleaving(int bits, int dimensions) {
+        this(bits, dimensions, dimensions >= Interleaving.transposeMinDimensions());
+    }
+
+    WordInterleaving(int bits, int dimensions, boolean transpose) {
+        int length = bits * dimensions;
+        this.bits = bits;
+        this.dimensions = dimensions;
+        this.words = (length + 63) / 64;
+        this.transpose = transpose;
+        this.width = bits == 1 ? 1 : Integer.highestOneBit(bits - 1) << 1;
+        // count the entries for each word
+        this.start = new int[words + 1];
+        for (int j = 0; j < dimensions; j++) {
+            int previous = -1;
+            for (int level = 0; level < bits; level++) {
+                int w = (level * dimensions + dimensions - 1 - j) >>> 6;
+                if (w != previous) {
+                    start[w + 1]++;
+                    previous = w;
+                }
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            start[w + 1] += start[w];
+        }
+        int n = start[words];
+        this.dims = new int[n];
+        this.masks = new long[n];
+        this.shifts = new int[n];
+        // fill the entries (in increasing dimension within a word)
+        int[] next = new int[words];
+        System.arraycopy(start, 0, next, 0, words);
+        for (int j = 0; j < dimensions; j++) {
+            int previous = -1;
+            int k = -1;
+            for (int level = 0; level < bits; level++) {
+                int position = level * dimensions + dimensions - 1 - j;
+                int w = position >>> 6;
+                if (w != previous) {
+                    k = next[w]++;
+                    dims[k] = j;
+                    shifts[k] = level;
+                    previous = w;
+                }
+                masks[k] |= 1L << (position & 63);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of words needed to hold an index.
+     * 
+     * @return number of words
+     */
+    int words() {
+        return words;
+    }
+
+    /**
+     * Returns the word of the index with significance {@code w} (0 is the least
+     * significant word).
+     * 
+     * @param transposedIndex
+     *            transposed index
+     * @param w
+     *            significance of the word
+     * @return the word
+     */
+    long word(long[] transposedIndex, int w) {
+        long b = 0;
+        for (int k = start[w]; k < start[w + 1]; k++) {
+            b |= Interleaving.expand(transposedIndex[dims[k]] >>> shifts[k], masks[k]);
+        }
+        return b;
+    }
+
+    /**
+     * Writes the index to {@code index}, most significant word first.
+     * 
+     * @param transposedIndex
+     *            transposed index
+     * @param index
+     *            receives the words of the index, length at least
+     *            {@link #words()}
+     */
+    void interleave(long[] transposedIndex, long[] index) {
+        if (transpose) {
+            interleaveByTranspose(transposedIndex, index);
+            return;
+        }
+        for (int w = 0; w < words; w++) {
+            index[words - 1 - w] = word(transposedIndex, w);
+        }
+    }
+
+    /**
+     * Writes the index to {@code b} as big-endian bytes.
+     * 
+     * @param transposedIndex
+     *            transposed index
+     * @param b
+     *            receives the bytes of the index, length ceil(bits * dimensions
+     *            / 8)
+     */
+    void interleave(long[] transposedIndex, byte[] b) {
+        if (transpose) {
+            interleaveByTranspose(transposedIndex, b);
+            return;
+        }
+        for (int w = 0; w < words; w++) {
+            long word = word(transposedIndex, w);
+            for (int i = 8 * w; i < 8 * w + 8 && i < b.length; i++) {
+                b[b.length - 1 - i] = (byte) word;
+                word >>>= 8;
+            }
+        }
+    }
+
+    /**
+     * Writes the transposed index of {@code index} (most significant word first)
+     * to the first dimensions elements of {@code transposedIndex}. Bits of the
+     * index above bits * dimensions are ignored.
+     * 
+     * @param index
+     *            words of the index, length {@link #words()}
+     * @param transposedIndex
+     *            receives the transposed index
+     * @param dimensions
+     *            number of dimensions
+     */
+    void deinterleave(long[] index, long[] transposedIndex, int dimensions) {
+        if (transpose) {
+            deinterleaveByTranspose(index, transposedIndex);
+            return;
+        }
+        for (int j = 0; j < dimensions; j++) {
+            transposedIndex[j] = 0;
+        }
+        for (int w = 0; w < words; w++) {
+            long word = index[words - 1 - w];
+            for (int k = start[w]; k < start[w + 1]; k++) {
+                transposedIndex[dims[k]] |= Interleaving.compress(word, masks[k]) << shifts[k];
+            }
+        }
+    }
+
+    // Dimensions j0 to j0 + n - 1 form a block. Row 63 - r of the block
+    // matrix is dimension j0 + r so that after the transpose bit 63 - r of row
+    // l is the bit of dimension j0 + r at level l, which belongs at position
+    // l * dimensions + dimensions - 1 - j0 - r of the index. Row l is therefore
+    // the 64 bits of the index ending at position
+    // l * dimensions + dimensions - 1 - j0 (bits of rows 63 - r for r >= n are
+    // zero).
+
+    // the transpose needs 64 longs of working space which would otherwise be
+    // the only allocation of the word and byte index methods
+    private static final ThreadLocal<long[]> MATRIX = ThreadLocal.withInitial(() -> new long[64]);
+
+    // transposes the block starting at dimension j0, row l of the result is
+    // level l
+    private long[] transposeBlock(long[] transposedIndex, int j0) {
+        long[] m = MATRIX.get();
+        int n = Math.min(64, dimensions - j0);
+        for (int r = 0; r < n; r++) {
+            m[63 - r] = transposedIndex[j0 + r];
+        }
+        for (int r = n; r < 64; r++) {
+            m[63 - r] = 0;
+        }
+        BitMatrix.transposeNarrow(m, width);
+        return m;
+    }
+
+    // position of bit 0 of row l of the block starting at dimension j0
+    private int position(int level, int j0) {
+        return level * dimensions + dimensions - 64 - j0;
+    }
+
+    private void interleaveByTranspose(long[] transposedIndex, long[] index) {
+        for (int w = 0; w < words; w++) {
+            index[w] = 0;
+        }
+        for (int j0 = 0; j0 < dimensions; j0 += 64) {
+            long[] m = transposeBlock(transposedIndex, j0);
+            for (int level = 0; level < bits; level++) {
+                or(index, m[level], position(level, j0));
+            }
+        }
+    }
+
+    private void interleaveByTranspose(long[] transposedIndex, byte[] b) {
+        for (int i = 0; i < b.length; i++) {
+            b[i] = 0;
+        }
+        for (int j0 = 0; j0 < dimensions; j0 += 64) {
+            long[] m = transposeBlock(transposedIndex, j0);
+            for (int level = 0; level < bits; level++) {
+                or(b, m[level], position(level, j0));
+            }
+        }
+    }
+
+    private void deinterleaveByTranspose(long[] index, long[] transposedIndex) {
+        long[] m = MATRIX.get();
+        for (int j0 = 0; j0 < dimensions; j0 += 64) {
+            int n = Math.min(64, dimensions - j0);
+            // only the top n bits of a row belong to the block
+            long mask = -1L << (64 - n);
+            for (int level = 0; level < bits; level++) {
+                m[level] = read(index, position(level, j0)) & mask;
+            }
+            for (int level = bits; level < width; level++) {
+                m[level] = 0;
+            }
+            BitMatrix.transposeToNarrow(m, width);
+            for (int r = 0; r < n; r++) {
+                transposedIndex[j0 + r] = m[63 - r];
+            }
+        }
+    }
+
+    // ORs the 64 bits of value into the index (most significant word first) so
+    // that bit 0 of value is at the given position (which may be negative in
+    // which case the bits below position 0 are dropped)
+    private void or(long[] index, long value, int position) {
+        if (position < 0) {
+            value >>>= -position;
+            position = 0;
+        }
+        int w = position >>> 6;
+        int shift = position & 63;
+        index[words - 1 - w] |= value << shift;
+        if (shift != 0 && w + 1 < words) {
+            index[words - 2 - w] |= value >>> (64 - shift);
+        }
+    }
+
+    // as above for a big-endian byte array
+    private static void or(byte[] b, long value, int position) {
+        if (position < 0) {
+            value >>>= -position;
+            position = 0;
+        }
+        int i = position >>> 3;
+        int shift = position & 7;
+        long low = value << shift;
+        for (int k = 0; k < 8 && i + k < b.length; k++) {
+            b[b.length - 1 - i - k] |= (byte) (low >>> (k << 3));
+        }
+        if (shift != 0 && i + 8 < b.length) {
+            b[b.length - 9 - i] |= (byte) (value >>> (64 - shift));
+        }
+    }
+
+    // reads the 64 bits of the index (most significant word first) starting at
+    // the given position (bits below position 0 or above the index are zero)
+    private long read(long[] index, int position) {
+        if (position < 0) {
+            return read(index, 0) << -position;
+        }
+        int w = position >>> 6;
+        int shift = position & 63;
+        long value = index[words - 1 - w] >>> shift;
+        if (shift != 0 && w + 1 < words) {
+            value |= index[words - 2 - w] << (64 - shift);
+        }
+        return value;
+    }
+
+}
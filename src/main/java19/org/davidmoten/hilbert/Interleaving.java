@@ -0,0 +1,57 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Moves bits between the transposed form of a Hilbert index (one {@code long}
+ * per dimension) and the interleaved {@code long} index.
+ *
+ * <p>
+ * This is the Java 19+ implementation (packaged in
+ * {@code META-INF/versions/19}). {@code Long.expand} and {@code Long.compress}
+ * are intrinsified to PDEP/PEXT on x86 so each dimension is moved with one
+ * instruction rather than one loop iteration per bit.
+ */
+final class Interleaving {
+
+    private Interleaving() {
+        // prevent instantiation
+    }
+
+    static long[] masks(int bits, int dimensions) {
+        long[] masks = new long[dimensions];
+        for (int j = 0; j < dimensions; j++) {
+            for (int level = 0; level < bits; level++) {
+                masks[j] |= 1L << (level * dimensions + dimensions - 1 - j);
+            }
+        }
+        return masks;
+    }
+
+    static long expand(long x, long mask) {
+        return Long.expand(x, mask);
+    }
+
+    static long compress(long x, long mask) {
+        return Long.compress(x, mask);
+    }
+
+    // with PDEP/PEXT the per dimension moves stay cheaper for longer
+    static int transposeMinDimensions() {
+        return 48;
+    }
+
+    static long interleave(long[] transposedIndex, long[] masks, int bits) {
+        long b = 0;
+        for (int j = 0; j < masks.length; j++) {
+            // bits of transposedIndex[j] above the mask's bit count are ignored
+            b |= Long.expand(transposedIndex[j], masks[j]);
+        }
+        return b;
+    }
+
+    static void deinterleave(long index, long[] masks, int bits, long[] transposedIndex) {
+        for (int j = 0; j < masks.length; j++) {
+            transposedIndex[j] = Long.compress(index, masks[j]);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.davidmoten.hilbert;
+
+/**
+ * Entry point for the SIMD batch encoding kernel.
+ *
+ * <p>
+ * This is the Java 19+ implementation (packaged in
+ * {@code META-INF/versions/19}). The kernel itself is in {@link VectorKernel}
+ * which uses the incubating Vector API. That class is only loaded if the
+ * {@code jdk.incubator.vector} module is present in the boot layer (the JVM
+ * was started with {@code --add-modules jdk.incubator.vector}), otherwise
+ * callers fall back to the scalar path.
+ */
+final class SimdKernel {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private SimdKernel() {
+        // prevent instantiation
+    }
+
+    static int indexes(int bits, long[][] ordinates, long[] indexes, int count) {
+        if (AVAILABLE) {
+            return VectorKernel.indexes(bits, ordinates, indexes, count);
+        } else {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package org.davidmoten.hilbert;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Skilling's {@code AxestoTranspose} and the bit interleave run over many
+ * points at once, one point per SIMD lane. The per-dimension invert/exchange
+ * branches of {@link HilbertCurve#axesToTranspose(int, long[])} become masked
+ * vector operations.
+ *
+ * <p>
+ * Only referenced from {@link SimdKernel} once it has checked that the
+ * {@code jdk.incubator.vector} module is available.
+ */
+final class VectorKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    // the working vectors of more than this number of dimensions don't fit in
+    // registers so the scalar path is used
+    private static final int MAX_DIMENSIONS = 8;
+
+    private VectorKernel() {
+        // prevent instantiation
+    }
+
+    static int indexes(int bits, long[][] ordinates, long[] indexes, int count) {
+        int n = ordinates.length;
+        if (n > MAX_DIMENSIONS) {
+            return 0;
+        }
+        int upper = SPECIES.loopBound(count);
+        switch (n) {
+        case 2:
+            for (int j = 0; j < upper; j += SPECIES.length()) {
+                indexes2(bits, ordinates, indexes, j);
+            }
+            return upper;
+        case 3:
+            for (int j = 0; j < upper; j += SPECIES.length()) {
+                indexes3(bits, ordinates, indexes, j);
+            }
+            return upper;
+        case 4:
+            for (int j = 0; j < upper; j += SPECIES.length()) {
+                indexes4(bits, ordinates, indexes, j);
+            }
+            return upper;
+        default:
+            LongVector[] x = new LongVector[n];
+            for (int j = 0; j < upper; j += SPECIES.length()) {
+                indexes(bits, ordinates, indexes, j, x);
+            }
+            return upper;
+        }
+    }
+
+    private static void indexes2(int bits, long[][] ordinates, long[] indexes, int j) {
+        LongVector x0 = LongVector.fromArray(SPECIES, ordinates[0], j);
+        LongVector x1 = LongVector.fromArray(SPECIES, ordinates[1], j);
+        for (long q = 1L << (bits - 1); q > 1; q >>= 1) {
+            long p = q - 1;
+            // i = 0, invert where the bit is set (an exchange with itself is a no-op)
+            x0 = x0.lanewise(VectorOperators.XOR, p, bit(x0, q));
+            // i = 1, invert where the bit is set otherwise exchange
+            VectorMask<Long> m = bit(x1, q);
+            LongVector t = x0.lanewise(VectorOperators.XOR, x1).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x1 = x1.lanewise(VectorOperators.XOR, t.blend(0, m));
+        }
+        // Gray encode
+        x1 = x1.lanewise(VectorOperators.XOR, x0);
+        LongVector t = parityMask(bits, x1);
+        x0 = x0.lanewise(VectorOperators.XOR, t);
+        x1 = x1.lanewise(VectorOperators.XOR, t);
+        // interleave
+        LongVector b = LongVector.zero(SPECIES);
+        for (int level = bits - 1; level >= 0; level--) {
+            b = b.lanewise(VectorOperators.LSHL, 2) //
+                    .or(x0.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 1)) //
+                    .or(x1.lanewise(VectorOperators.LSHR, level).and(1));
+        }
+        b.intoArray(indexes, j);
+    }
+
+    private static void indexes3(int bits, long[][] ordinates, long[] indexes, int j) {
+        LongVector x0 = LongVector.fromArray(SPECIES, ordinates[0], j);
+        LongVector x1 = LongVector.fromArray(SPECIES, ordinates[1], j);
+        LongVector x2 = LongVector.fromArray(SPECIES, ordinates[2], j);
+        for (long q = 1L << (bits - 1); q > 1; q >>= 1) {
+            long p = q - 1;
+            x0 = x0.lanewise(VectorOperators.XOR, p, bit(x0, q));
+            VectorMask<Long> m = bit(x1, q);
+            LongVector t = x0.lanewise(VectorOperators.XOR, x1).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x1 = x1.lanewise(VectorOperators.XOR, t.blend(0, m));
+            m = bit(x2, q);
+            t = x0.lanewise(VectorOperators.XOR, x2).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x2 = x2.lanewise(VectorOperators.XOR, t.blend(0, m));
+        }
+        x1 = x1.lanewise(VectorOperators.XOR, x0);
+        x2 = x2.lanewise(VectorOperators.XOR, x1);
+        LongVector t = parityMask(bits, x2);
+        x0 = x0.lanewise(VectorOperators.XOR, t);
+        x1 = x1.lanewise(VectorOperators.XOR, t);
+        x2 = x2.lanewise(VectorOperators.XOR, t);
+        LongVector b = LongVector.zero(SPECIES);
+        for (int level = bits - 1; level >= 0; level--) {
+            b = b.lanewise(VectorOperators.LSHL, 3) //
+                    .or(x0.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 2)) //
+                    .or(x1.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 1)) //
+                    .or(x2.lanewise(VectorOperators.LSHR, level).and(1));
+        }
+        b.intoArray(indexes, j);
+    }
+
+    private static void indexes4(int bits, long[][] ordinates, long[] indexes, int j) {
+        LongVector x0 = LongVector.fromArray(SPECIES, ordinates[0], j);
+        LongVector x1 = LongVector.fromArray(SPECIES, ordinates[1], j);
+        LongVector x2 = LongVector.fromArray(SPECIES, ordinates[2], j);
+        LongVector x3 = LongVector.fromArray(SPECIES, ordinates[3], j);
+        for (long q = 1L << (bits - 1); q > 1; q >>= 1) {
+            long p = q - 1;
+            x0 = x0.lanewise(VectorOperators.XOR, p, bit(x0, q));
+            VectorMask<Long> m = bit(x1, q);
+            LongVector t = x0.lanewise(VectorOperators.XOR, x1).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x1 = x1.lanewise(VectorOperators.XOR, t.blend(0, m));
+            m = bit(x2, q);
+            t = x0.lanewise(VectorOperators.XOR, x2).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x2 = x2.lanewise(VectorOperators.XOR, t.blend(0, m));
+            m = bit(x3, q);
+            t = x0.lanewise(VectorOperators.XOR, x3).and(p);
+            x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+            x3 = x3.lanewise(VectorOperators.XOR, t.blend(0, m));
+        }
+        x1 = x1.lanewise(VectorOperators.XOR, x0);
+        x2 = x2.lanewise(VectorOperators.XOR, x1);
+        x3 = x3.lanewise(VectorOperators.XOR, x2);
+        LongVector t = parityMask(bits, x3);
+        x0 = x0.lanewise(VectorOperators.XOR, t);
+        x1 = x1.lanewise(VectorOperators.XOR, t);
+        x2 = x2.lanewise(VectorOperators.XOR, t);
+        x3 = x3.lanewise(VectorOperators.XOR, t);
+        LongVector b = LongVector.zero(SPECIES);
+        for (int level = bits - 1; level >= 0; level--) {
+            b = b.lanewise(VectorOperators.LSHL, 4) //
+                    .or(x0.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 3)) //
+                    .or(x1.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 2)) //
+                    .or(x2.lanewise(VectorOperators.LSHR, level).and(1).lanewise(VectorOperators.LSHL, 1)) //
+                    .or(x3.lanewise(VectorOperators.LSHR, level).and(1));
+        }
+        b.intoArray(indexes, j);
+    }
+
+    // general case, the working vectors are held in an array
+    private static void indexes(int bits, long[][] ordinates, long[] indexes, int j, LongVector[] x) {
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            x[i] = LongVector.fromArray(SPECIES, ordinates[i], j);
+        }
+        for (long q = 1L << (bits - 1); q > 1; q >>= 1) {
+            long p = q - 1;
+            LongVector x0 = x[0].lanewise(VectorOperators.XOR, p, bit(x[0], q));
+            for (int i = 1; i < n; i++) {
+                LongVector xi = x[i];
+                VectorMask<Long> m = bit(xi, q);
+                LongVector t = x0.lanewise(VectorOperators.XOR, xi).and(p);
+                x0 = x0.lanewise(VectorOperators.XOR, t.blend(p, m));
+                x[i] = xi.lanewise(VectorOperators.XOR, t.blend(0, m));
+            }
+            x[0] = x0;
+        }
+        for (int i = 1; i < n; i++) {
+            x[i] = x[i].lanewise(VectorOperators.XOR, x[i - 1]);
+        }
+        LongVector t = parityMask(bits, x[n - 1]);
+        for (int i = 0; i < n; i++) {
+            x[i] = x[i].lanewise(VectorOperators.XOR, t);
+        }
+        LongVector b = LongVector.zero(SPECIES);
+        for (int level = bits - 1; level >= 0; level--) {
+            for (int i = 0; i < n; i++) {
+                b = b.lanewise(VectorOperators.LSHL, 1).or(x[i].lanewise(VectorOperators.LSHR, level).and(1));
+            }
+        }
+        b.intoArray(indexes, j);
+    }
+
+    // lanes where x has the bit q set
+    private static VectorMask<Long> bit(LongVector x, long q) {
+        return x.and(q).compare(VectorOperators.NE, 0);
+    }
+
+    // the t of Skilling's Gray encode step
+    private static LongVector parityMask(int bits, LongVector last) {
+        LongVector t = LongVector.zero(SPECIES);
+        for (long q = 1L << (bits - 1); q > 1; q >>= 1) {
+            t = t.lanewise(VectorOperators.XOR, q - 1, bit(last, q));
+        }
+        return t;
+    }
+
+}
@@ -1,10 +1,17 @@
 package org.davidmoten.hilbert;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.infra.Blackhole;
 
 public class Benchmarks {
@@ -16,6 +23,48 @@ public class Benchmarks {
     private static final int N = (int) small.maxOrdinate();
     private static final long[] point = new long[DIMENSIONS];
     private static final List<long[]> points = createPoints();
+    private static final SmallHilbertCurve small2D = HilbertCurve.small().bits(16).dimensions(2);
+    private static final SmallHilbertCurve small3D = HilbertCurve.small().bits(16).dimensions(3);
+    private static final List<long[]> points2D = createPoints(small2D, 32);
+    private static final List<long[]> points3D = createPoints(small3D, 48);
+    private static final long[] flatPoints = flatten(points, DIMENSIONS);
+    private static final long[] flatPoints2D = flatten(points2D, 2);
+    private static final long[] flatPoints3D = flatten(points3D, 3);
+    private static final long[][] ordinates2D = columns(points2D, 2);
+    private static final long[] indexes = new long[N];
+    private static final long[] indexes2D = indexes(small2D, flatPoints2D);
+    private static final long[] pointsOut = new long[N * DIMENSIONS];
+    private static final long[] scratch = new long[DIMENSIONS];
+    private static final int BATCH = 1024;
+    private static final SmallHilbertCurve small4D = HilbertCurve.small().bits(15).dimensions(4);
+    private static final long[][] batchOrdinates2D = randomColumns(2, 16);
+    private static final long[][] batchOrdinates3D = randomColumns(3, 16);
+    private static final long[][] batchOrdinates4D = randomColumns(4, 15);
+    private static final long[] batchIndexes = new long[BATCH];
+    private static final byte[] indexBytes = new byte[(BITS * DIMENSIONS + 7) / 8];
+    private static final HilbertCurve big4D = HilbertCurve.bits(32).dimensions(4);
+    private static final MediumHilbertCurve medium4D = HilbertCurve.medium().bits(32).dimensions(4);
+    private static final long[][] points4D32Bits = randomPoints(4, 32);
+    private static final long[] medium4DScratch = new long[4];
+    private static final long[] medium4DIndex = new long[2];
+    private static final long[] scratch3D = new long[3];
+    private static final SmallHilbertCurve small2D10Bits = HilbertCurve.small().bits(10).dimensions(2);
+    private static final SmallHilbertCurve small2D10BitsPrecomputed = small2D10Bits.precomputed();
+    private static final long[] points2D10Bits = flatten(randomPoints(2, 10));
+    private static final long[] indexes2D10Bits = batchIndexes(small2D10Bits, points2D10Bits);
+    private static final TinyHilbertCurve tiny3D = HilbertCurve.tiny().bits(10).dimensions(3);
+    private static final SmallHilbertCurve small3D10Bits = HilbertCurve.small().bits(10).dimensions(3);
+    private static final int[] tinyPoints3D = toInts(flatten(randomPoints(3, 10)));
+    private static final long[] smallPoints3D = flatten(randomPoints(3, 10));
+    private static final int[] tinyIndexes = new int[BATCH];
+    private static final HilbertCurve big16D = HilbertCurve.bits(16).dimensions(16);
+    private static final long[][] points16D16Bits = randomPoints(16, 16);
+    private static final long[] scratch16D = new long[16];
+    private static final long[] words16D = new long[big16D.words()];
+    private static final HilbertCurve big128D = HilbertCurve.bits(4).dimensions(128);
+    private static final long[][] points128D4Bits = randomPoints(128, 4);
+    private static final long[] scratch128D = new long[128];
+    private static final long[] words128D = new long[big128D.words()];
 
     @Benchmark
     public void roundTripAllPoints10Bits1024Calls(Blackhole b) {
@@ -93,7 +142,364 @@ public class Benchmarks {
         }
     }
 
+    @Benchmark
+    public void toIndexSmall2D16Bits1024Calls(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            b.consume(small2D.index(points2D.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void toIndexSmall3D16Bits1024Calls(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            b.consume(small3D.index(points3D.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void pointSmall2D16Bits1024CallsLowAllocation(Blackhole b) {
+        long[] x = new long[2];
+        for (long i = 0; i < N; i++) {
+            small2D.point(i * 4194301, x);
+            b.consume(x);
+        }
+    }
+
+    @Benchmark
+    public void pointSmall3D16Bits1024CallsLowAllocation(Blackhole b) {
+        long[] x = new long[3];
+        for (long i = 0; i < N; i++) {
+            small3D.point(i * 274877906899L, x);
+            b.consume(x);
+        }
+    }
+
+    @Benchmark
+    public long[] toIndexAllPoints10Bits1024CallsSmallBatch() {
+        small.indexes(flatPoints, indexes, N);
+        return indexes;
+    }
+
+    @Benchmark
+    public long[] toIndexSmall2D16Bits1024CallsBatch() {
+        small2D.indexes(flatPoints2D, indexes, N);
+        return indexes;
+    }
+
+    @Benchmark
+    public long[] toIndexSmall2D16Bits1024CallsBatchColumns() {
+        small2D.indexes(ordinates2D, indexes, N);
+        return indexes;
+    }
+
+    @Benchmark
+    public long[] toIndexSmall3D16Bits1024CallsBatch() {
+        small3D.indexes(flatPoints3D, indexes, N);
+        return indexes;
+    }
+
+    @Benchmark
+    public long[] pointSmall2D16Bits1024CallsBatch() {
+        small2D.points(indexes2D, pointsOut, N);
+        return pointsOut;
+    }
+
+    // run with -prof gc to confirm gc.alloc.rate.norm is ~0 B/op
+    @Benchmark
+    public void toIndexAllPoints10Bits1024CallsSmallZeroAllocation(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            b.consume(small.index(points.get(i), scratch));
+        }
+    }
+
+    // run with -prof gc to confirm gc.alloc.rate.norm is ~0 B/op
+    @Benchmark
+    public void toIndexAllPoints10Bits1024CallsZeroAllocation(Blackhole b) {
+        for (int i = 0; i < N; i++) {
+            c.index(points.get(i), scratch, indexBytes);
+            b.consume(indexBytes);
+        }
+    }
+
+    // The SIMD kernel is only used on Java 19+ from the multi-release jar with
+    // -jvmArgs "--add-modules jdk.incubator.vector", otherwise it processes
+    // nothing and the scalar equivalent is toIndexBatchColumns*
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] simdKernelPerPoint2D16Bits() {
+        SimdKernel.indexes(16, batchOrdinates2D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] simdKernelPerPoint3D16Bits() {
+        SimdKernel.indexes(16, batchOrdinates3D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] simdKernelPerPoint4D15Bits() {
+        SimdKernel.indexes(15, batchOrdinates4D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    // 2D and 3D use the state tables
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchColumnsPerPoint2D16Bits() {
+        small2D.indexes(batchOrdinates2D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchColumnsPerPoint3D16Bits() {
+        small3D.indexes(batchOrdinates3D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    // uses the SIMD kernel when available
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchColumnsPerPoint4D15Bits() {
+        small4D.indexes(batchOrdinates4D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    // 128 bit indexes: BigInteger vs two longs
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint4D32Bits(Blackhole b) {
+        for (long[] p : points4D32Bits) {
+            b.consume(big4D.point(big4D.index(p)));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint4D32BitsMedium(Blackhole b) {
+        for (long[] p : points4D32Bits) {
+            b.consume(medium4D.point(medium4D.index(p)));
+        }
+    }
+
+    // run with -prof gc to confirm gc.alloc.rate.norm is ~0 B/op
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint4D32BitsMediumZeroAllocation(Blackhole b) {
+        for (long[] p : points4D32Bits) {
+            medium4D.index(p, medium4DScratch, medium4DIndex);
+            medium4D.point(medium4DIndex[0], medium4DIndex[1], medium4DScratch);
+            b.consume(medium4DScratch);
+        }
+    }
+
+    // heatmap grid sized curve with state tables vs precomputed lookup
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchPerPoint2D10Bits() {
+        small2D10Bits.indexes(points2D10Bits, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchPerPoint2D10BitsPrecomputed() {
+        small2D10BitsPrecomputed.indexes(points2D10Bits, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] pointBatchPerPoint2D10Bits() {
+        small2D10Bits.points(indexes2D10Bits, pointsOut, BATCH);
+        return pointsOut;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] pointBatchPerPoint2D10BitsPrecomputed() {
+        small2D10BitsPrecomputed.points(indexes2D10Bits, pointsOut, BATCH);
+        return pointsOut;
+    }
+
+    // scanning the cells of an index range
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void scanRangePerPoint5D10Bits(Blackhole b) {
+        long start = 123456789L;
+        for (long i = start; i < start + BATCH; i++) {
+            small.point(i, scratch);
+            b.consume(scratch);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void scanRangePerPoint5D10BitsCursor(Blackhole b) {
+        HilbertCursor cursor = small.cursor(123456789L);
+        for (int i = 0; i < BATCH; i++) {
+            cursor.point(scratch);
+            b.consume(scratch);
+            cursor.next();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void scanRangePerPoint3D16Bits(Blackhole b) {
+        long start = 123456789L;
+        for (long i = start; i < start + BATCH; i++) {
+            small3D.point(i, scratch3D);
+            b.consume(scratch3D);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void scanRangePerPoint3D16BitsCursor(Blackhole b) {
+        HilbertCursor cursor = small3D.cursor(123456789L);
+        for (int i = 0; i < BATCH; i++) {
+            cursor.point(scratch3D);
+            b.consume(scratch3D);
+            cursor.next();
+        }
+    }
+
+    // int vs long keys
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public int[] toIndexBatchPerPoint3D10BitsTiny() {
+        tiny3D.indexes(tinyPoints3D, tinyIndexes, BATCH);
+        return tinyIndexes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public long[] toIndexBatchPerPoint3D10BitsSmall() {
+        small3D10Bits.indexes(smallPoints3D, batchIndexes, BATCH);
+        return batchIndexes;
+    }
+
+    // 256 bit indexes: BigInteger vs long words
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint16D16Bits(Blackhole b) {
+        for (long[] p : points16D16Bits) {
+            b.consume(big16D.point(big16D.index(p)));
+        }
+    }
+
+    // run with -prof gc to confirm gc.alloc.rate.norm is ~0 B/op
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint16D16BitsWordsZeroAllocation(Blackhole b) {
+        for (long[] p : points16D16Bits) {
+            big16D.index(p, scratch16D, words16D);
+            big16D.point(words16D, scratch16D);
+            b.consume(scratch16D);
+        }
+    }
+
+    // many dimensions and few bits (bit matrix transpose)
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void roundTripPerPoint128D4BitsWordsZeroAllocation(Blackhole b) {
+        for (long[] p : points128D4Bits) {
+            big128D.index(p, scratch128D, words128D);
+            big128D.point(words128D, scratch128D);
+            b.consume(scratch128D);
+        }
+    }
+
+    // sorting 1024 points into Hilbert order: comparator vs BigInteger keys
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[][] sort16D16BitsComparator() {
+        long[][] a = points16D16Bits.clone();
+        Arrays.sort(a, big16D.comparator());
+        return a;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[][] sort16D16BitsIndexKeys() {
+        long[][] a = points16D16Bits.clone();
+        Arrays.sort(a, Comparator.comparing(p -> big16D.index(p)));
+        return a;
+    }
+
     private static final Query query = new Query();
+    private static final HilbertCurve wide4D20 = HilbertCurve.bits(20).dimensions(4);
+    private static final MediumHilbertCurve medium4D20 = HilbertCurve.medium().bits(20).dimensions(4);
+    private static final long[] wideBoxA = { 1000, 2000, 3000, 4000 };
+    private static final long[] wideBoxB = { 1030, 2030, 3030, 4030 };
+    private static final long[] shiftedBoxA = { 228, 428, 628 };
+    private static final long[] shiftedBoxB = { 483, 683, 883 };
+    private static final long[] ballCenter = { 500, 500, 500 };
+    private static final Region ball = Region.ball(ballCenter, 40);
+    private static final SmallHilbertCurve polygonCurve = HilbertCurve.small().bits(16).dimensions(2);
+    private static final double[] polygonX = new double[1000];
+    private static final double[] polygonY = new double[1000];
+
+    static {
+        for (int i = 0; i < polygonX.length; i++) {
+            double angle = 2 * Math.PI * i / polygonX.length;
+            polygonX[i] = 30000 + 2000 * Math.cos(angle);
+            polygonY[i] = 30000 + 2000 * Math.sin(angle);
+        }
+    }
+
+    private static final long[] largeBoxA = { 100, 300, 500 };
+    private static final long[] largeBoxB = { 355, 555, 755 };
 
     @Benchmark
     public Ranges querySydney() {
@@ -105,6 +511,78 @@ public class Benchmarks {
         return query.query(8);
     }
 
+    @Benchmark
+    public Ranges querySydneyByDecomposition() {
+        return query.h.queryByDecomposition(query.point1, query.point2);
+    }
+
+    // a box with sides a quarter of the domain (10 bits, 3 dimensions)
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryLargeBox() {
+        return query.h.query(largeBoxA, largeBoxB);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryLargeBoxByDecomposition() {
+        return query.h.queryByDecomposition(largeBoxA, largeBoxB);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryLargeBoxParallel() {
+        return query.h.queryParallel(largeBoxA, largeBoxB);
+    }
+
+    @Benchmark
+    public Range queryLargeBoxFirstRange() {
+        return query.h.queryIterator(largeBoxA, largeBoxB).next();
+    }
+
+    // two overlapping boxes with sides a quarter of the domain
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryUnionOfTwoLargeBoxes() {
+        return query.h.queryUnion(Arrays.asList(largeBoxA, shiftedBoxA), Arrays.asList(largeBoxB, shiftedBoxB));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryBallRadius40() {
+        return query.h.queryBall(ballCenter, 40);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryBallRadius40MaxDepth6() {
+        return query.h.query(ball, 0, 6);
+    }
+
+    // a polygon of 1000 vertices approximating a circle of radius 2000
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Ranges queryPolygon1000Vertices() {
+        return polygonCurve.queryPolygon(polygonX, polygonY);
+    }
+
+    @Benchmark
+    public List<WideRange> queryWide4D20Bits() {
+        return wide4D20.query(wideBoxA, wideBoxB);
+    }
+
+    @Benchmark
+    public List<Range128> queryMedium4D20Bits() {
+        return medium4D20.query(wideBoxA, wideBoxB);
+    }
+
     private static final class Query {
     	//query sydney region from whole world for one hour from midday from a day
         float lat1 = -33.806477f;
@@ -138,4 +616,82 @@ public class Benchmarks {
         }
         return list;
     }
+
+    private static long[][] randomColumns(int dimensions, int bits) {
+        Random r = new Random(1);
+        long[][] a = new long[dimensions][BATCH];
+        for (int i = 0; i < dimensions; i++) {
+            for (int j = 0; j < BATCH; j++) {
+                a[i][j] = r.nextLong() & ((1L << bits) - 1);
+            }
+        }
+        return a;
+    }
+
+    private static long[][] randomPoints(int dimensions, int bits) {
+        long[][] columns = randomColumns(dimensions, bits);
+        long[][] a = new long[BATCH][dimensions];
+        for (int j = 0; j < BATCH; j++) {
+            for (int i = 0; i < dimensions; i++) {
+                a[j][i] = columns[i][j];
+            }
+        }
+        return a;
+    }
+
+    private static long[] flatten(long[][] points) {
+        long[] a = new long[points.length * points[0].length];
+        for (int j = 0; j < points.length; j++) {
+            System.arraycopy(points[j], 0, a, j * points[j].length, points[j].length);
+        }
+        return a;
+    }
+
+    private static int[] toInts(long[] a) {
+        int[] b = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            b[i] = (int) a[i];
+        }
+        return b;
+    }
+
+    private static long[] flatten(List<long[]> list, int dimensions) {
+        long[] a = new long[N * dimensions];
+        for (int j = 0; j < N; j++) {
+            System.arraycopy(list.get(j), 0, a, j * dimensions, dimensions);
+        }
+        return a;
+    }
+
+    private static long[][] columns(List<long[]> list, int dimensions) {
+        long[][] a = new long[dimensions][N];
+        for (int j = 0; j < N; j++) {
+            for (int i = 0; i < dimensions; i++) {
+                a[i][j] = list.get(j)[i];
+            }
+        }
+        return a;
+    }
+
+    private static long[] batchIndexes(SmallHilbertCurve h, long[] points) {
+        long[] a = new long[BATCH];
+        h.indexes(points, a, BATCH);
+        return a;
+    }
+
+    private static long[] indexes(SmallHilbertCurve h, long[] points) {
+        long[] a = new long[N];
+        h.indexes(points, a, N);
+        return a;
+    }
+
+    private static List<long[]> createPoints(SmallHilbertCurve h, int indexBits) {
+        // spread the points over the whole domain
+        long step = (1L << indexBits) / N;
+        List<long[]> list = new ArrayList<>((int) N);
+        for (long i = 0; i < N; i++) {
+            list.add(h.point(i * step));
+        }
+        return list;
+    }
 }
\ No newline at end of file
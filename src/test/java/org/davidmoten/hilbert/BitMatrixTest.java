@@ -0,0 +1,90 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitMatrixTest {
+
+    @Test
+    public void testTranspose() {
+        Random r = new Random(1);
+        long[] a = new long[64];
+        for (int i = 0; i < 64; i++) {
+            a[i] = r.nextLong();
+        }
+        long[] b = a.clone();
+        BitMatrix.transpose(b);
+        assertArrayEquals(transposeBitByBit(a), b);
+        BitMatrix.transpose(b);
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    public void testTransposeNarrowAndBack() {
+        Random r = new Random(2);
+        for (int width = 1; width <= 64; width <<= 1) {
+            long[] a = new long[64];
+            for (int i = 0; i < 64; i++) {
+                a[i] = width == 64 ? r.nextLong() : r.nextLong() & ((1L << width) - 1);
+            }
+            long[] expected = transposeBitByBit(a);
+            long[] b = a.clone();
+            BitMatrix.transposeNarrow(b, width);
+            assertArrayEquals(Arrays.copyOf(expected, width), Arrays.copyOf(b, width));
+            // rows at and above width are not read
+            for (int i = width; i < 64; i++) {
+                b[i] = r.nextLong();
+            }
+            BitMatrix.transposeToNarrow(b, width);
+            assertArrayEquals(a, b);
+        }
+    }
+
+    @Test
+    public void testWordInterleavingByTransposeMatchesPerDimension() {
+        Random r = new Random(3);
+        for (int dimensions = 2; dimensions <= 300; dimensions += dimensions < 70 ? 1 : 37) {
+            for (int bits = 1; bits <= 63 && bits * dimensions <= 4096; bits += bits < 10 ? 1 : 7) {
+                WordInterleaving perDimension = new WordInterleaving(bits, dimensions, false);
+                WordInterleaving transpose = new WordInterleaving(bits, dimensions, true);
+                long[] point = new long[dimensions];
+                for (int j = 0; j < dimensions; j++) {
+                    point[j] = r.nextLong() >>> (64 - bits);
+                }
+                long[] expected = new long[perDimension.words()];
+                perDimension.interleave(point, expected);
+                long[] index = new long[transpose.words()];
+                transpose.interleave(point, index);
+                assertArrayEquals(expected, index);
+                byte[] expectedBytes = new byte[(bits * dimensions + 7) / 8];
+                perDimension.interleave(point, expectedBytes);
+                byte[] bytes = new byte[expectedBytes.length];
+                transpose.interleave(point, bytes);
+                assertArrayEquals(expectedBytes, bytes);
+                // bits above the index are ignored
+                int unused = index.length * 64 - bits * dimensions;
+                if (unused > 0) {
+                    index[0] |= -1L << (64 - unused);
+                }
+                long[] x = new long[dimensions];
+                transpose.deinterleave(index, x, dimensions);
+                assertArrayEquals(point, x);
+            }
+        }
+    }
+
+    private static long[] transposeBitByBit(long[] a) {
+        long[] b = new long[64];
+        for (int row = 0; row < 64; row++) {
+            for (int column = 0; column < 64; column++) {
+                b[column] |= ((a[row] >>> column) & 1) << row;
+            }
+        }
+        return b;
+    }
+
+}
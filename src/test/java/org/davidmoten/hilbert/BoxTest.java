@@ -164,4 +164,32 @@ public class BoxTest {
         }
         throw new AssertionError("value not found: " + Arrays.toString(v));
     }
+
+    @Test
+    public void testPerimeterFacesHoldTheCellsOfThePerimeter() {
+        long[][][] boxes = { { { 1, 2, 3 }, { 5, 7, 4 } }, { { 1, 2 }, { 1, 9 } }, { { 4, 4, 4 }, { 4, 4, 4 } },
+                { { 0, 0, 0, 0 }, { 3, 1, 5, 2 } }, { { 2, 5 }, { 3, 6 } } };
+        for (long[][] ab : boxes) {
+            Box box = new Box(ab[0], ab[1]);
+            List<String> expected = new ArrayList<>();
+            box.visitPerimeter(cell -> expected.add(Arrays.toString(cell)));
+            List<String> actual = new ArrayList<>();
+            for (Box face : box.perimeterFaces()) {
+                face.visitCells(cell -> actual.add(Arrays.toString(cell)));
+            }
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSplitAndVolume() {
+        Box box = new Box(new long[] { 1, 10 }, new long[] { 3, 2 });
+        assertEquals(27, box.volume());
+        Box[] halves = box.split();
+        assertEquals("Box [[1, 2], [3, 6]]", halves[0].toString());
+        assertEquals("Box [[1, 7], [3, 10]]", halves[1].toString());
+        assertEquals(Long.MAX_VALUE, new Box(new long[] { 0, 0 }, new long[] { Long.MAX_VALUE - 1, 2 }).volume());
+    }
 }
@@ -0,0 +1,147 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CompactHilbertCurveTest {
+
+    @Test
+    public void testSameBitsMatchesSmallHilbertCurve() {
+        Random r = new Random(1);
+        for (int dimensions = 2; dimensions <= 5; dimensions++) {
+            int bits = 60 / dimensions;
+            int[] b = new int[dimensions];
+            Arrays.fill(b, bits);
+            CompactHilbertCurve c = HilbertCurve.compact().bits(b);
+            SmallHilbertCurve s = HilbertCurve.small().bits(bits).dimensions(dimensions);
+            assertEquals(s.maxIndex(), c.maxIndex());
+            for (int n = 0; n < 200; n++) {
+                long[] point = new long[dimensions];
+                for (int j = 0; j < dimensions; j++) {
+                    point[j] = r.nextLong() >>> (64 - bits);
+                }
+                long index = s.index(point);
+                assertEquals(index, c.index(point));
+                assertArrayEquals(point, c.point(index));
+            }
+        }
+    }
+
+    @Test
+    public void testBijectionAndOrderOfFullCurve() {
+        int[][] configurations = { { 3, 2 }, { 1, 4 }, { 2, 5, 3 }, { 4, 1, 2 }, { 3, 3, 1, 2 } };
+        for (int[] bits : configurations) {
+            CompactHilbertCurve c = HilbertCurve.compact().bits(bits);
+            int levels = Arrays.stream(bits).max().getAsInt();
+            SmallHilbertCurve full = HilbertCurve.small().bits(levels).dimensions(bits.length);
+            int total = Arrays.stream(bits).sum();
+            assertEquals((1L << total) - 1, c.maxIndex());
+            Set<List<Long>> seen = new HashSet<>();
+            List<long[]> points = new ArrayList<>();
+            for (long index = 0; index <= c.maxIndex(); index++) {
+                long[] point = c.point(index);
+                for (int j = 0; j < bits.length; j++) {
+                    assertTrue(point[j] >= 0 && point[j] <= c.maxOrdinate(j));
+                }
+                assertTrue(seen.add(toList(point)));
+                assertEquals(index, c.index(point));
+                points.add(point);
+            }
+            // the compact order is the order of the full curve restricted to the
+            // grid
+            List<long[]> sorted = new ArrayList<>(points);
+            sorted.sort(Comparator.comparingLong(p -> full.index(p)));
+            for (int i = 0; i < points.size(); i++) {
+                assertArrayEquals(sorted.get(i), points.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testQueryMatchesBruteForce() {
+        Random r = new Random(2);
+        int[][] configurations = { { 5, 3 }, { 3, 4, 2 }, { 6, 2 }, { 2, 6 } };
+        for (int[] bits : configurations) {
+            CompactHilbertCurve c = HilbertCurve.compact().bits(bits);
+            for (int n = 0; n < 30; n++) {
+                long[] a = new long[bits.length];
+                long[] b = new long[bits.length];
+                for (int j = 0; j < bits.length; j++) {
+                    a[j] = r.nextInt(1 << bits[j]);
+                    b[j] = r.nextInt(1 << bits[j]);
+                }
+                assertEquals(bruteForce(c, a, b), c.query(a, b).toList());
+                Ranges limited = c.query(a, b, 2);
+                assertTrue(limited.size() <= 2);
+                // still covers the box
+                for (Range range : c.query(a, b)) {
+                    for (long i = range.low(); i <= range.high(); i++) {
+                        final long index = i;
+                        assertTrue(limited.stream().anyMatch(x -> x.contains(index)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShorterIndexThanFullCurve() {
+        // lat, lon at 20 bits and time at 12 bits fits in a long
+        CompactHilbertCurve c = HilbertCurve.compact().bits(20, 20, 12);
+        assertEquals((1L << 52) - 1, c.maxIndex());
+        long[] point = { 123456, 654321, 4000 };
+        assertArrayEquals(point, c.point(c.index(point)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBits() {
+        HilbertCurve.compact().bits(40, 20, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroBits() {
+        HilbertCurve.compact().bits(4, 0);
+    }
+
+    private static List<Range> bruteForce(CompactHilbertCurve c, long[] a, long[] b) {
+        List<Range> list = new ArrayList<>();
+        long start = -1;
+        for (long index = 0; index <= c.maxIndex(); index++) {
+            long[] p = c.point(index);
+            boolean inside = true;
+            for (int j = 0; j < p.length; j++) {
+                inside &= Math.min(a[j], b[j]) <= p[j] && p[j] <= Math.max(a[j], b[j]);
+            }
+            if (inside && start == -1) {
+                start = index;
+            } else if (!inside && start != -1) {
+                list.add(Range.create(start, index - 1));
+                start = -1;
+            }
+        }
+        if (start != -1) {
+            list.add(Range.create(start, c.maxIndex()));
+        }
+        return list;
+    }
+
+    private static List<Long> toList(long[] point) {
+        List<Long> list = new ArrayList<>();
+        for (long x : point) {
+            list.add(x);
+        }
+        return list;
+    }
+
+}
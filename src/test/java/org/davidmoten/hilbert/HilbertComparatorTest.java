@@ -0,0 +1,104 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HilbertComparatorTest {
+
+    @Test
+    public void testMatchesIndexOrder2D() {
+        checkMatchesIndexOrder(10, 2);
+        checkMatchesIndexOrder(31, 2);
+    }
+
+    @Test
+    public void testMatchesIndexOrder3D() {
+        checkMatchesIndexOrder(5, 3);
+        checkMatchesIndexOrder(21, 3);
+    }
+
+    @Test
+    public void testMatchesIndexOrderWithoutTables() {
+        checkMatchesIndexOrder(1, 4);
+        checkMatchesIndexOrder(16, 4);
+        checkMatchesIndexOrder(16, 16);
+        checkMatchesIndexOrder(63, 5);
+    }
+
+    @Test
+    public void testMatchesIndexOrderManyDimensions() {
+        checkMatchesIndexOrder(3, 70);
+    }
+
+    @Test
+    public void testEqualPointsCompareZero() {
+        HilbertCurve c = HilbertCurve.bits(8).dimensions(4);
+        assertEquals(0, c.comparator().compare(new long[] { 1, 2, 3, 4 }, new long[] { 1, 2, 3, 4 }));
+        HilbertCurve c2 = HilbertCurve.bits(8).dimensions(2);
+        assertEquals(0, c2.comparator().compare(new long[] { 7, 9 }, new long[] { 7, 9 }));
+    }
+
+    @Test
+    public void testCompareAtOffsets() {
+        HilbertCurve c = HilbertCurve.bits(8).dimensions(3);
+        long[] points = { 0, 0, 0, 1, 2, 3, 200, 100, 50 };
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                long[] a = { points[i * 3], points[i * 3 + 1], points[i * 3 + 2] };
+                long[] b = { points[j * 3], points[j * 3 + 1], points[j * 3 + 2] };
+                assertEquals(c.index(a).compareTo(c.index(b)), Integer.signum(c.compare(points, i * 3, points, j * 3)));
+            }
+        }
+    }
+
+    @Test
+    public void testSortIntoHilbertOrder() {
+        HilbertCurve c = HilbertCurve.bits(4).dimensions(2);
+        List<long[]> points = new ArrayList<>();
+        for (long i = 0; i < 256; i++) {
+            points.add(c.point(i));
+        }
+        Collections.shuffle(points, new Random(1));
+        points.sort(c.comparator());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(i, c.index(points.get(i)).longValue());
+        }
+    }
+
+    private static void checkMatchesIndexOrder(int bits, int dimensions) {
+        HilbertCurve c = HilbertCurve.bits(bits).dimensions(dimensions);
+        Comparator<long[]> comparator = c.comparator();
+        Random r = new Random(bits * 100 + dimensions);
+        for (int n = 0; n < 2000; n++) {
+            long[] a = random(r, bits, dimensions);
+            long[] b = a.clone();
+            // vary a few bits of a so that some pairs share many levels
+            int changes = r.nextInt(3);
+            for (int k = 0; k < changes; k++) {
+                b[r.nextInt(dimensions)] ^= 1L << r.nextInt(bits);
+            }
+            if (r.nextBoolean()) {
+                b = random(r, bits, dimensions);
+            }
+            int expected = c.index(a).compareTo(c.index(b));
+            assertEquals(expected, Integer.signum(comparator.compare(a, b)));
+            assertEquals(-expected, Integer.signum(comparator.compare(b, a)));
+        }
+    }
+
+    private static long[] random(Random r, int bits, int dimensions) {
+        long[] x = new long[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            x[i] = r.nextLong() >>> (64 - bits);
+        }
+        return x;
+    }
+
+}
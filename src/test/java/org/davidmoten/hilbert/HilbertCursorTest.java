@@ -0,0 +1,76 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HilbertCursorTest {
+
+    @Test
+    public void testWalkWholeCurveForwardsAndBackwards() {
+        int[][] configurations = { { 5, 2 }, { 4, 3 }, { 3, 4 }, { 2, 5 }, { 1, 6 }, { 6, 1 } };
+        for (int[] c : configurations) {
+            SmallHilbertCurve h = HilbertCurve.small().bits(c[0]).dimensions(c[1]);
+            HilbertCursor cursor = h.cursor(0);
+            long[] x = new long[c[1]];
+            for (long i = 0; i <= h.maxIndex(); i++) {
+                assertEquals(i, cursor.index());
+                assertArrayEquals(h.point(i), cursor.point());
+                if (i < h.maxIndex()) {
+                    assertTrue(cursor.next());
+                }
+            }
+            assertFalse(cursor.next());
+            assertEquals(h.maxIndex(), cursor.index());
+            for (long i = h.maxIndex(); i >= 0; i--) {
+                assertEquals(i, cursor.index());
+                cursor.point(x);
+                assertArrayEquals(h.point(i), x);
+                if (i > 0) {
+                    assertTrue(cursor.previous());
+                }
+            }
+            assertFalse(cursor.previous());
+            assertEquals(0, cursor.index());
+        }
+    }
+
+    @Test
+    public void testStepsAreToNeighbouringCells() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(20).dimensions(3);
+        HilbertCursor cursor = h.cursor(123456789L);
+        long[] previous = cursor.point();
+        for (int n = 0; n < 100000; n++) {
+            assertTrue(cursor.next());
+            long distance = 0;
+            for (int i = 0; i < 3; i++) {
+                distance += Math.abs(cursor.ordinate(i) - previous[i]);
+            }
+            assertEquals(1, distance);
+            cursor.point(previous);
+        }
+        assertArrayEquals(h.point(123456789L + 100000), cursor.point());
+    }
+
+    @Test
+    public void testMoveToAndLargeIndexes() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(9).dimensions(7);
+        HilbertCursor cursor = h.cursor(h.maxIndex());
+        assertArrayEquals(h.point(h.maxIndex()), cursor.point());
+        long start = h.maxIndex() / 3;
+        cursor.moveTo(start);
+        for (int n = 0; n < 1000; n++) {
+            assertArrayEquals(h.point(start + n), cursor.point());
+            cursor.next();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexOutOfRange() {
+        HilbertCurve.small().bits(5).dimensions(2).cursor(1024);
+    }
+
+}
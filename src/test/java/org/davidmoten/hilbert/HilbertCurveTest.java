@@ -1,6 +1,7 @@
 package org.davidmoten.hilbert;
 
 import static org.davidmoten.hilbert.GeoUtil.scalePoint;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -14,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
@@ -510,4 +512,267 @@ public class HilbertCurveTest {
 		}
 	}
 
+	@Test
+	public void testBatchIndexesAndPointsMatchPerPoint() {
+		for (int dimensions = 2; dimensions <= 5; dimensions++) {
+			SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(dimensions);
+			int count = 100;
+			long[] points = new long[count * dimensions];
+			long[][] ordinates = new long[dimensions][count];
+			long[] expected = new long[count];
+			for (int j = 0; j < count; j++) {
+				long[] p = h.point(j * 37L);
+				expected[j] = j * 37L;
+				for (int i = 0; i < dimensions; i++) {
+					points[j * dimensions + i] = p[i];
+					ordinates[i][j] = p[i];
+				}
+			}
+			long[] indexes = new long[count];
+			h.indexes(points, indexes, count);
+			assertArrayEquals(expected, indexes);
+			indexes = new long[count];
+			h.indexes(ordinates, indexes, count);
+			assertArrayEquals(expected, indexes);
+
+			long[] points2 = new long[count * dimensions];
+			h.points(expected, points2, count);
+			assertArrayEquals(points, points2);
+			long[][] ordinates2 = new long[dimensions][count];
+			h.points(expected, ordinates2, count);
+			for (int i = 0; i < dimensions; i++) {
+				assertArrayEquals(ordinates[i], ordinates2[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testBatchIndexesCountZero() {
+		SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(2);
+		h.indexes(new long[0], new long[0], 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchIndexesPointsTooShort() {
+		SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(2);
+		h.indexes(new long[3], new long[2], 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchPointsWrongNumberOfOrdinateArrays() {
+		SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(3);
+		h.points(new long[2], new long[2][2], 2);
+	}
+
+	@Test
+	public void testSmallIndexWithScratchDoesNotModifyPoint() {
+		for (int dimensions = 2; dimensions <= 5; dimensions++) {
+			SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(dimensions);
+			long[] scratch = new long[dimensions + 1];
+			for (long index = 0; index < 1000; index += 7) {
+				long[] point = h.point(index);
+				long[] copy = Arrays.copyOf(point, dimensions);
+				assertEquals(index, h.index(point, scratch));
+				assertArrayEquals(copy, point);
+			}
+		}
+	}
+
+	@Test
+	public void testIndexToBytesMatchesBigInteger() {
+		for (int bits = 1; bits <= 12; bits++) {
+			for (int dimensions = 2; dimensions <= 6; dimensions++) {
+				HilbertCurve h = HilbertCurve.bits(bits).dimensions(dimensions);
+				long[] scratch = new long[dimensions];
+				byte[] bytes = new byte[(bits * dimensions + 7) / 8];
+				for (long index = 0; index < Math.min(300, 1L << (bits * dimensions)); index++) {
+					long[] point = h.point(index);
+					long[] copy = Arrays.copyOf(point, dimensions);
+					h.index(point, scratch, bytes);
+					assertEquals(h.index(point), new BigInteger(1, bytes));
+					assertArrayEquals(copy, point);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIndexToBytesWrongLength() {
+		HilbertCurve h = HilbertCurve.bits(5).dimensions(2);
+		h.index(new long[2], new long[2], new byte[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSmallIndexScratchTooShort() {
+		SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(4);
+		h.index(new long[4], new long[3]);
+	}
+
+	@Test
+	public void testIndexToWordsMatchesBitByBitInterleaving() {
+		Random r = new Random(3);
+		int[][] configurations = { { 16, 16 }, { 63, 3 }, { 1, 100 }, { 7, 13 }, { 5, 2 }, { 32, 2 }, { 63, 65 }, { 4, 128 },
+				{ 8, 64 }, { 3, 200 }, { 2, 17 }, { 33, 70 }, { 5, 48 } };
+		for (int[] c : configurations) {
+			int bits = c[0];
+			int dimensions = c[1];
+			HilbertCurve h = HilbertCurve.bits(bits).dimensions(dimensions);
+			assertEquals((bits * dimensions + 63) / 64, h.words());
+			long[] scratch = new long[dimensions];
+			long[] words = new long[h.words()];
+			long[] x = new long[dimensions];
+			for (int n = 0; n < 50; n++) {
+				long[] point = new long[dimensions];
+				for (int j = 0; j < dimensions; j++) {
+					point[j] = r.nextLong() >>> (64 - bits);
+				}
+				long[] copy = Arrays.copyOf(point, dimensions);
+				BigInteger expected = interleaveBitByBit(HilbertCurve.transposedIndex(bits, point), bits);
+				h.index(point, scratch, words);
+				assertArrayEquals(copy, point);
+				assertEquals(expected, WideIndex.create(words).toBigInteger());
+				assertEquals(expected, h.wideIndex(point).toBigInteger());
+				assertEquals(expected, h.index(point));
+				byte[] bytes = new byte[(bits * dimensions + 7) / 8];
+				h.index(point, scratch, bytes);
+				assertEquals(expected, new BigInteger(1, bytes));
+				h.point(words, x);
+				assertArrayEquals(point, x);
+				assertArrayEquals(point, h.point(h.wideIndex(point)));
+				assertArrayEquals(point, h.point(expected));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIndexToWordsWrongLength() {
+		HilbertCurve h = HilbertCurve.bits(16).dimensions(5);
+		h.index(new long[5], new long[5], new long[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPointFromWordsWrongLength() {
+		HilbertCurve h = HilbertCurve.bits(16).dimensions(5);
+		h.point(new long[1], new long[5]);
+	}
+
+	// reference implementation of the interleaving, one bit at a time
+	private static BigInteger interleaveBitByBit(long[] transposedIndex, int bits) {
+		BigInteger b = BigInteger.ZERO;
+		for (int level = bits - 1; level >= 0; level--) {
+			for (long x : transposedIndex) {
+				b = b.shiftLeft(1);
+				if (((x >>> level) & 1) == 1) {
+					b = b.setBit(0);
+				}
+			}
+		}
+		return b;
+	}
+
+	@Test
+	public void testLongFastPathMatchesGeneralPath() {
+		for (int bits = 1; bits <= 21; bits += 4) {
+			for (int dimensions = 2; bits * dimensions <= 63; dimensions++) {
+				HilbertCurve h = HilbertCurve.bits(bits).dimensions(dimensions);
+				assertTrue(h.fitsInLong());
+				long[] x = new long[dimensions];
+				long max = HilbertCurve.small().bits(bits).dimensions(dimensions).maxIndex();
+				long step = Math.max(1, max / 500);
+				for (long index = 0; index >= 0 && index <= max; index += step) {
+					// general path
+					long[] expected = HilbertCurve.transposedIndexToPoint(bits, h.transpose(BigInteger.valueOf(index)));
+					assertArrayEquals(expected, h.point(index));
+					h.point(index, x);
+					assertArrayEquals(expected, x);
+					assertArrayEquals(expected, h.point(BigInteger.valueOf(index)));
+					assertEquals(index, h.indexAsLong(expected));
+					assertEquals(h.toIndex(HilbertCurve.transposedIndex(bits, expected)), h.index(expected));
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIndexAsLongWhenIndexTooBig() {
+		HilbertCurve h = HilbertCurve.bits(16).dimensions(4);
+		Assert.assertFalse(h.fitsInLong());
+		h.indexAsLong(1, 2, 3, 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPointFromNegativeLongOnFastPath() {
+		HilbertCurve.bits(5).dimensions(2).point(-1L);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPointIntoArrayFromNegativeLongOnFastPath() {
+		HilbertCurve.bits(5).dimensions(2).point(-1L, new long[2]);
+	}
+
+	@Test
+	public void testQueryWideSameAsMedium() {
+		HilbertCurve h = HilbertCurve.bits(20).dimensions(4);
+		MediumHilbertCurve m = HilbertCurve.medium().bits(20).dimensions(4);
+		long[] a = { 1000, 2000, 3000, 4000 };
+		long[] b = { 1005, 2009, 3004, 4003 };
+		for (int maxRanges : new int[] { 0, 1, 5, 20 }) {
+			List<Range128> expected = m.query(a, b, maxRanges);
+			List<WideRange> ranges = h.query(a, b, maxRanges);
+			assertEquals(expected.size(), ranges.size());
+			for (int i = 0; i < ranges.size(); i++) {
+				assertEquals(expected.get(i).low().toBigInteger(), ranges.get(i).low().toBigInteger());
+				assertEquals(expected.get(i).high().toBigInteger(), ranges.get(i).high().toBigInteger());
+			}
+		}
+	}
+
+	@Test
+	public void testQueryWideAgainstBruteForce() {
+		// 64 bits (one unsigned word) and 130 bits (three words)
+		checkQueryAgainstBruteForce(HilbertCurve.bits(16).dimensions(4), new long[] { 65530, 3, 7, 0 },
+				new long[] { 65535, 6, 9, 2 });
+		checkQueryAgainstBruteForce(HilbertCurve.bits(10).dimensions(13),
+				new long[] { 500, 3, 1023, 7, 0, 0, 0, 0, 0, 0, 9, 8, 7 },
+				new long[] { 502, 4, 1022, 7, 1, 1, 0, 0, 0, 0, 9, 9, 7 });
+	}
+
+	private static void checkQueryAgainstBruteForce(HilbertCurve h, long[] a, long[] b) {
+		List<WideIndex> indexes = new ArrayList<>();
+		new Box(a, b).visitCells(cell -> indexes.add(h.wideIndex(cell)));
+		indexes.sort(null);
+		List<BigInteger> expected = new ArrayList<>();
+		BigInteger previous = null;
+		for (WideIndex index : indexes) {
+			BigInteger x = index.toBigInteger();
+			if (previous == null || !x.equals(previous.add(BigInteger.ONE))) {
+				if (previous != null) {
+					expected.add(previous);
+				}
+				expected.add(x);
+			}
+			previous = x;
+		}
+		expected.add(previous);
+		List<BigInteger> actual = new ArrayList<>();
+		for (WideRange r : h.query(a, b)) {
+			assertEquals(h.words(), r.low().size());
+			actual.add(r.low().toBigInteger());
+			actual.add(r.high().toBigInteger());
+		}
+		assertEquals(expected, actual);
+		List<WideRange> one = h.query(a, b, 1);
+		assertEquals(1, one.size());
+		assertEquals(expected.get(0), one.get(0).low().toBigInteger());
+		assertEquals(expected.get(expected.size() - 1), one.get(0).high().toBigInteger());
+	}
+
+	@Test
+	public void testQuerySmallLengthUsesSmallCurve() {
+		HilbertCurve h = HilbertCurve.bits(5).dimensions(2);
+		List<WideRange> ranges = h.query(new long[] { 3, 3 }, new long[] { 8, 10 }, 1);
+		assertEquals(1, ranges.size());
+		assertEquals(WideRange.create(WideIndex.create(10), WideIndex.create(229)), ranges.get(0));
+	}
+
 }
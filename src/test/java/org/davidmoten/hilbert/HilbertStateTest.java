@@ -0,0 +1,67 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HilbertStateTest {
+
+    @Test
+    public void testLevelByLevelMatchesSkilling() {
+        Random r = new Random(12345);
+        for (int dimensions = 2; dimensions <= 7; dimensions++) {
+            for (int bits = 1; bits <= 9; bits++) {
+                HilbertCurve c = HilbertCurve.bits(bits).dimensions(dimensions);
+                for (int n = 0; n < 200; n++) {
+                    long[] point = new long[dimensions];
+                    for (int i = 0; i < dimensions; i++) {
+                        point[i] = r.nextInt(1 << bits);
+                    }
+                    BigInteger index = c.index(point);
+                    assertEquals(index, BigInteger.valueOf(index(bits, point)));
+                    assertArrayEquals(point, point(bits, dimensions, index.longValue()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        HilbertState a = new HilbertState(3);
+        HilbertState b = a.copy();
+        assertEquals(a, b);
+        b.encode(5);
+        assertEquals(new HilbertState(3), a);
+    }
+
+    private static long index(int bits, long[] point) {
+        HilbertState state = new HilbertState(point.length);
+        long index = 0;
+        for (int level = bits - 1; level >= 0; level--) {
+            long raw = 0;
+            for (int i = 0; i < point.length; i++) {
+                raw |= ((point[i] >>> level) & 1) << i;
+            }
+            index = (index << point.length) | state.encode(raw);
+        }
+        return index;
+    }
+
+    private static long[] point(int bits, int dimensions, long index) {
+        HilbertState state = new HilbertState(dimensions);
+        long[] x = new long[dimensions];
+        for (int level = bits - 1; level >= 0; level--) {
+            long digit = (index >>> (level * dimensions)) & ((1L << dimensions) - 1);
+            long raw = state.decode(digit);
+            for (int i = 0; i < dimensions; i++) {
+                x[i] = (x[i] << 1) | ((raw >>> i) & 1);
+            }
+        }
+        return x;
+    }
+
+}
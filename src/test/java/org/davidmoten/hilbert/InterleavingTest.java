@@ -0,0 +1,88 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+
+public class InterleavingTest {
+
+    @Test
+    public void isUtilClass() {
+        Asserts.assertIsUtilityClass(Interleaving.class);
+    }
+
+    @Test
+    public void testMasks() {
+        long[] masks = Interleaving.masks(3, 2);
+        assertEquals(0b101010, masks[0]);
+        assertEquals(0b010101, masks[1]);
+    }
+
+    @Test
+    public void testRoundTripMatchesBitByBit() {
+        Random r = new Random(42);
+        for (int dimensions = 1; dimensions <= 10; dimensions++) {
+            for (int bits = 1; bits * dimensions <= 63; bits++) {
+                long[] masks = Interleaving.masks(bits, dimensions);
+                long[] x = new long[dimensions];
+                for (int n = 0; n < 100; n++) {
+                    long[] transposed = new long[dimensions];
+                    for (int j = 0; j < dimensions; j++) {
+                        transposed[j] = r.nextLong() & ((1L << bits) - 1);
+                    }
+                    long index = Interleaving.interleave(transposed, masks, bits);
+                    assertEquals(interleave(transposed, bits), index);
+                    Interleaving.deinterleave(index, masks, bits, x);
+                    assertArrayEquals(transposed, x);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInterleaveIgnoresBitsAboveBits() {
+        long[] masks = Interleaving.masks(3, 2);
+        assertEquals(Interleaving.interleave(new long[] { 0b101, 0b011 }, masks, 3),
+                Interleaving.interleave(new long[] { 0b11101, 0b1000011 }, masks, 3));
+    }
+
+    @Test
+    public void testExpandAndCompress() {
+        assertEquals(0b1000_0010L, Interleaving.expand(0b101, 0b1100_0010L));
+        assertEquals(0b101, Interleaving.compress(0b1000_0010L, 0b1100_0010L));
+        assertEquals(0, Interleaving.expand(-1L, 0));
+        assertEquals(-1L, Interleaving.expand(-1L, -1L));
+        assertEquals(-1L, Interleaving.compress(-1L, -1L));
+        Random r = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            long x = r.nextLong();
+            long mask = r.nextLong();
+            long bits = Long.bitCount(mask) == 64 ? -1L : (1L << Long.bitCount(mask)) - 1;
+            assertEquals(x & bits, Interleaving.compress(Interleaving.expand(x, mask), mask));
+        }
+    }
+
+    // reference implementation, one bit at a time
+    private static long interleave(long[] transposedIndex, int bits) {
+        int dimensions = transposedIndex.length;
+        long b = 0;
+        int bIndex = bits * dimensions - 1;
+        long mask = 1L << (bits - 1);
+        for (int i = 0; i < bits; i++) {
+            for (int j = 0; j < dimensions; j++) {
+                if ((transposedIndex[j] & mask) != 0) {
+                    b |= 1L << bIndex;
+                }
+                bIndex--;
+            }
+            mask >>= 1;
+        }
+        return b;
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongBufferTest {
+
+    @Test
+    public void testAddGrowsBuffer() {
+        LongBuffer b = new LongBuffer(1);
+        for (int i = 0; i < 1000; i++) {
+            b.add(i * 3);
+        }
+        assertEquals(1000, b.size());
+        assertEquals(2997, b.get(999));
+        b.clear();
+        assertEquals(0, b.size());
+    }
+
+    @Test
+    public void testSortMatchesArraysSort() {
+        Random r = new Random(1);
+        for (int bits : new int[] { 0, 1, 7, 11, 12, 30, 33, 62, 63 }) {
+            for (int size : new int[] { 0, 1, 100, 255, 256, 10000 }) {
+                long[] a = new long[size];
+                for (int i = 0; i < size; i++) {
+                    a[i] = bits == 0 ? 0 : r.nextLong() >>> (64 - bits);
+                }
+                long[] expected = a.clone();
+                Arrays.sort(expected);
+                LongBuffer.sort(a, size, bits);
+                assertArrayEquals("bits=" + bits + ", size=" + size, expected, a);
+            }
+        }
+    }
+
+    @Test
+    public void testSortOnlyTouchesSize() {
+        long[] a = new long[] { 5, 4, 3, 2, 1 };
+        LongBuffer.sort(a, 3, 3);
+        assertArrayEquals(new long[] { 3, 4, 5, 2, 1 }, a);
+    }
+
+    @Test
+    public void testSortRecordsMatchesBigIntegerOrder() {
+        Random r = new Random(5);
+        int words = 3;
+        int bits = 130;
+        int count = 2000;
+        long[] a = new long[count * words];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i % words == 0 ? r.nextLong() & 3 : r.nextLong();
+        }
+        List<BigInteger> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(WideIndex.create(Arrays.copyOfRange(a, i * words, (i + 1) * words)).toBigInteger());
+        }
+        expected.sort(null);
+        LongBuffer.sortRecords(a, count, words, bits);
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected.get(i),
+                    WideIndex.create(Arrays.copyOfRange(a, i * words, (i + 1) * words)).toBigInteger());
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MediumHilbertCurveTest {
+
+    @Test
+    public void testIndexMatchesHilbertCurve() {
+        Random r = new Random(1);
+        int[][] configurations = { { 32, 4 }, { 63, 2 }, { 21, 6 }, { 16, 8 }, { 5, 3 }, { 42, 3 }, { 9, 14 } };
+        for (int[] c : configurations) {
+            int bits = c[0];
+            int dimensions = c[1];
+            HilbertCurve h = HilbertCurve.bits(bits).dimensions(dimensions);
+            MediumHilbertCurve m = HilbertCurve.medium().bits(bits).dimensions(dimensions);
+            long[] scratch = new long[dimensions];
+            long[] words = new long[2];
+            long[] x = new long[dimensions];
+            for (int n = 0; n < 500; n++) {
+                long[] point = new long[dimensions];
+                for (int j = 0; j < dimensions; j++) {
+                    point[j] = r.nextLong() & m.maxOrdinate();
+                }
+                long[] copy = point.clone();
+                BigInteger expected = h.index(point);
+                Index128 index = m.index(point);
+                assertEquals(expected, index.toBigInteger());
+                m.index(point, scratch, words);
+                assertEquals(index, Index128.create(words[0], words[1]));
+                assertArrayEquals(copy, point);
+                assertArrayEquals(point, m.point(index));
+                m.point(words[0], words[1], x);
+                assertArrayEquals(point, x);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexSequenceIsContiguous() {
+        MediumHilbertCurve m = HilbertCurve.medium().bits(3).dimensions(3);
+        HilbertCurve h = HilbertCurve.bits(3).dimensions(3);
+        for (long i = 0; i < 512; i++) {
+            assertArrayEquals(h.point(i), m.point(Index128.create(0, i)));
+        }
+    }
+
+    @Test
+    public void testMaxIndex() {
+        assertEquals(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE),
+                HilbertCurve.medium().bits(32).dimensions(4).maxIndex().toBigInteger());
+        assertEquals(BigInteger.valueOf(63), HilbertCurve.medium().bits(3).dimensions(2).maxIndex().toBigInteger());
+        assertEquals(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE),
+                HilbertCurve.medium().bits(32).dimensions(2).maxIndex().toBigInteger());
+        assertEquals(BigInteger.ONE.shiftLeft(99).subtract(BigInteger.ONE),
+                HilbertCurve.medium().bits(33).dimensions(3).maxIndex().toBigInteger());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBits() {
+        HilbertCurve.medium().bits(43).dimensions(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPointWrongLength() {
+        HilbertCurve.medium().bits(32).dimensions(4).point(0, 0, new long[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryVertexWrongLength() {
+        HilbertCurve.medium().bits(32).dimensions(3).query(new long[] { 1, 2 }, new long[] { 3, 4, 5 });
+    }
+
+    @Test
+    public void testIndex128Ordering() {
+        Index128 a = Index128.create(0, -1L);
+        Index128 b = Index128.create(1, 0);
+        Index128 c = Index128.create(-1L, 0);
+        assertTrue(a.compareTo(b) < 0);
+        assertTrue(b.compareTo(c) < 0);
+        assertTrue(Index128.create(0, 1).compareTo(a) < 0);
+        assertEquals(0, a.compareTo(Index128.create(0, -1L)));
+        assertEquals(b, a.next());
+        assertEquals(Index128.create(0, 1), b.minus(a));
+        assertEquals("18446744073709551615", a.toString());
+        BigInteger big = BigInteger.ONE.shiftLeft(127).add(BigInteger.valueOf(12345));
+        assertEquals(big, Index128.create(big).toBigInteger());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndex128FromNegative() {
+        Index128.create(BigInteger.valueOf(-1));
+    }
+
+    @Test
+    public void testQueryMatchesSmallHilbertCurve() {
+        SmallHilbertCurve s = HilbertCurve.small().bits(5).dimensions(3);
+        MediumHilbertCurve m = HilbertCurve.medium().bits(5).dimensions(3);
+        Random r = new Random(7);
+        for (int n = 0; n < 50; n++) {
+            long[] a = { r.nextInt(32), r.nextInt(32), r.nextInt(32) };
+            long[] b = { r.nextInt(32), r.nextInt(32), r.nextInt(32) };
+            assertEquals(toRange128s(s.query(a, b)), m.query(a, b));
+            for (int maxRanges = 1; maxRanges <= 4; maxRanges++) {
+                List<Range128> ranges = m.query(a, b, maxRanges);
+                assertTrue(ranges.size() <= maxRanges);
+                // every exact range is covered by a joined range
+                for (Range128 exact : m.query(a, b)) {
+                    assertTrue(ranges.stream()
+                            .anyMatch(x -> x.contains(exact.low()) && x.contains(exact.high())));
+                }
+                // joining the smallest gaps is optimal
+                List<Range128> exact = m.query(a, b);
+                assertEquals(optimalCoverage(exact, maxRanges), coverage(ranges));
+                assertTrue(coverage(ranges).compareTo(coverage(toRange128s(s.query(a, b, maxRanges)))) <= 0);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryCoversBoxCellsAcrossWords() {
+        // 32 * 4 = 128 bits so indexes span both words
+        MediumHilbertCurve m = HilbertCurve.medium().bits(32).dimensions(4);
+        long base = 1L << 31;
+        long[] a = { base - 2, base - 1, base, 7 };
+        long[] b = { base + 1, base + 2, base + 1, 9 };
+        List<Range128> ranges = m.query(a, b);
+        Box box = new Box(a, b);
+        box.visitCells(cell -> {
+            Index128 index = m.index(cell);
+            assertTrue(ranges.stream().anyMatch(x -> x.contains(index)));
+        });
+        long cells = 0;
+        for (Range128 range : ranges) {
+            cells += range.high().minus(range.low()).lo() + 1;
+        }
+        assertEquals(4 * 4 * 2 * 3, cells);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertTrue(ranges.get(i - 1).high().next().compareTo(ranges.get(i).low()) < 0);
+        }
+    }
+
+    private static List<Range128> toRange128s(Ranges ranges) {
+        List<Range128> list = new ArrayList<>();
+        for (Range range : ranges) {
+            list.add(Range128.create(Index128.create(0, range.low()), Index128.create(0, range.high())));
+        }
+        return list;
+    }
+
+    private static BigInteger optimalCoverage(List<Range128> exact, int maxRanges) {
+        List<BigInteger> gaps = new ArrayList<>();
+        for (int i = 1; i < exact.size(); i++) {
+            gaps.add(exact.get(i).low().minus(exact.get(i - 1).high()).toBigInteger().subtract(BigInteger.ONE));
+        }
+        Collections.sort(gaps);
+        BigInteger total = coverage(exact);
+        for (int i = 0; i < exact.size() - maxRanges; i++) {
+            total = total.add(gaps.get(i));
+        }
+        return total;
+    }
+
+    private static BigInteger coverage(List<Range128> ranges) {
+        BigInteger total = BigInteger.ZERO;
+        for (Range128 range : ranges) {
+            total = total.add(range.high().minus(range.low()).toBigInteger()).add(BigInteger.ONE);
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class NearestNeighboursTest {
+
+    @Test
+    public void testSameDistancesAsBruteForce() {
+        Random r = new Random(8);
+        int[][] configurations = { { 10, 2 }, { 8, 3 }, { 5, 4 } };
+        for (int[] c : configurations) {
+            SmallHilbertCurve h = HilbertCurve.small().bits(c[0]).dimensions(c[1]);
+            TreeMap<Long, List<long[]>> store = new TreeMap<>();
+            List<long[]> points = new ArrayList<>();
+            for (int n = 0; n < 2000; n++) {
+                long[] p = randomPoint(r, h);
+                points.add(p);
+                store.computeIfAbsent(h.index(p), x -> new ArrayList<>()).add(p);
+            }
+            for (int n = 0; n < 20; n++) {
+                long[] q = randomPoint(r, h);
+                int k = 1 + r.nextInt(20);
+                List<Double> expected = new ArrayList<>();
+                for (long[] p : points) {
+                    expected.add(distance(p, q));
+                }
+                expected.sort(null);
+                for (int scanLevels : new int[] { 0, 2, c[0] }) {
+                    List<Neighbour<long[]>> found = h.nearest(q, k, scanLevels, scanner(store, new AtomicInteger()));
+                    assertEquals(k, found.size());
+                    for (int i = 0; i < k; i++) {
+                        assertEquals(expected.get(i), found.get(i).distance(), 0);
+                        assertEquals(found.get(i).distance(), distance(found.get(i).value(), q), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReturnsAllItemsWhenFewerThanK() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(2);
+        TreeMap<Long, List<long[]>> store = new TreeMap<>();
+        store.computeIfAbsent(h.index(1, 2), x -> new ArrayList<>()).add(new long[] { 1, 2 });
+        store.computeIfAbsent(h.index(60, 50), x -> new ArrayList<>()).add(new long[] { 60, 50 });
+        List<Neighbour<long[]>> found = h.nearest(new long[] { 58, 50 }, 5, 1, scanner(store, new AtomicInteger()));
+        assertEquals(2, found.size());
+        assertEquals(2, found.get(0).distance(), 0);
+    }
+
+    @Test
+    public void testPointIsCopied() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(2);
+        long[] p = { 3, 4 };
+        Neighbour<String> n = h.<String> nearest(new long[] { 0, 0 }, 1, 0, (range, consumer) -> {
+            if (range.contains(h.index(p))) {
+                consumer.accept(p, "a");
+            }
+        }).get(0);
+        p[0] = 9;
+        n.point()[1] = 9;
+        assertArrayEquals(new long[] { 3, 4 }, n.point());
+    }
+
+    @Test
+    public void testReadsOnlyNearbyRanges() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(10).dimensions(2);
+        TreeMap<Long, List<long[]>> store = new TreeMap<>();
+        // a dense grid of points every 8 cells
+        for (long x = 0; x < 1024; x += 8) {
+            for (long y = 0; y < 1024; y += 8) {
+                store.computeIfAbsent(h.index(x, y), i -> new ArrayList<>()).add(new long[] { x, y });
+            }
+        }
+        AtomicInteger scans = new AtomicInteger();
+        List<Neighbour<long[]>> found = h.nearest(new long[] { 500, 500 }, 4, 3, scanner(store, scans));
+        assertEquals(4, found.size());
+        assertEquals(Math.sqrt(32), found.get(3).distance(), 0.000001);
+        // out of 16384 sub-squares of side 8
+        assertTrue(scans.get() < 20);
+    }
+
+    private static RangeScanner<long[]> scanner(TreeMap<Long, List<long[]>> store, AtomicInteger scans) {
+        return (range, consumer) -> {
+            scans.incrementAndGet();
+            for (Entry<Long, List<long[]>> entry : store.subMap(range.low(), true, range.high(), true).entrySet()) {
+                for (long[] p : entry.getValue()) {
+                    consumer.accept(p, p);
+                }
+            }
+        };
+    }
+
+    private static long[] randomPoint(Random r, SmallHilbertCurve h) {
+        long[] p = new long[h.dimensions()];
+        for (int i = 0; i < p.length; i++) {
+            p[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+        }
+        return p;
+    }
+
+    private static double distance(long[] a, long[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (double) (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return Math.sqrt(sum);
+    }
+
+}
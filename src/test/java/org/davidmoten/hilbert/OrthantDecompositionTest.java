@@ -0,0 +1,255 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class OrthantDecompositionTest {
+
+    @Test
+    public void testSameRangesAsPerimeterAlgorithm() {
+        Random r = new Random(1);
+        // with tables (2 and 3 dimensions) and without
+        int[][] configurations = { { 5, 2 }, { 10, 2 }, { 31, 2 }, { 4, 3 }, { 21, 3 }, { 3, 4 }, { 15, 4 },
+                { 2, 5 }, { 12, 5 } };
+        for (int[] c : configurations) {
+            int bits = c[0];
+            int dimensions = c[1];
+            SmallHilbertCurve h = HilbertCurve.small().bits(bits).dimensions(dimensions);
+            // keep the boxes small enough for the perimeter algorithm
+            long maxWidth = Math.min(h.maxOrdinate(), dimensions <= 3 ? 40 : 8);
+            for (int n = 0; n < 50; n++) {
+                long[] a = new long[dimensions];
+                long[] b = new long[dimensions];
+                for (int i = 0; i < dimensions; i++) {
+                    a[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+                    long w = (r.nextLong() >>> 1) % (maxWidth + 1);
+                    b[i] = Math.min(h.maxOrdinate(), a[i] + w);
+                    if (r.nextBoolean()) {
+                        // vertices in any order
+                        long t = a[i];
+                        a[i] = b[i];
+                        b[i] = t;
+                    }
+                }
+                List<Range> expected = h.query(a, b).toList();
+                assertEquals(expected, h.queryByDecomposition(a, b).toList());
+                Ranges limited = h.queryByDecomposition(a, b, 3);
+                assertTrue(limited.size() <= 3);
+                for (Range range : expected) {
+                    assertTrue(limited.stream().anyMatch(x -> x.low() <= range.low() && range.high() <= x.high()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWholeDomainIsOneRange() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(21).dimensions(3);
+        long max = h.maxOrdinate();
+        List<Range> ranges = h.queryByDecomposition(new long[] { 0, 0, 0 }, new long[] { max, max, max }).toList();
+        assertEquals(1, ranges.size());
+        assertEquals(Range.create(0, h.maxIndex()), ranges.get(0));
+    }
+
+    @Test
+    public void testLargeBoxAgainstBruteForce() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(3);
+        long[] a = { 3, 10, 0 };
+        long[] b = { 60, 41, 63 };
+        Box box = new Box(a, b);
+        List<Range> ranges = h.queryByDecomposition(a, b).toList();
+        int k = 0;
+        for (long index = 0; index <= h.maxIndex(); index++) {
+            while (k < ranges.size() && ranges.get(k).high() < index) {
+                k++;
+            }
+            boolean covered = k < ranges.size() && ranges.get(k).contains(index);
+            assertEquals(box.contains(h.point(index)), covered);
+        }
+    }
+
+    @Test
+    public void testIteratorAndStreamSameAsQuery() {
+        Random r = new Random(3);
+        int[][] configurations = { { 10, 2 }, { 8, 3 }, { 5, 4 } };
+        for (int[] c : configurations) {
+            SmallHilbertCurve h = HilbertCurve.small().bits(c[0]).dimensions(c[1]);
+            for (int n = 0; n < 20; n++) {
+                long[] a = new long[c[1]];
+                long[] b = new long[c[1]];
+                for (int i = 0; i < c[1]; i++) {
+                    a[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+                    b[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+                }
+                List<Range> expected = h.query(a, b).toList();
+                List<Range> actual = new ArrayList<>();
+                h.queryIterator(a, b).forEachRemaining(actual::add);
+                assertEquals(expected, actual);
+                assertEquals(expected, h.queryStream(a, b).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    public void testIteratorIsLazy() {
+        // a huge region with about 2^31 ranges, only the first few are found
+        SmallHilbertCurve h = HilbertCurve.small().bits(21).dimensions(3);
+        long[] a = { 1, 1, 1 };
+        long[] b = { h.maxOrdinate() - 1, h.maxOrdinate() - 1, h.maxOrdinate() - 1 };
+        Iterator<Range> it = h.queryIterator(a, b);
+        Range previous = it.next();
+        for (int i = 0; i < 1000; i++) {
+            Range range = it.next();
+            assertTrue(previous.high() + 1 < range.low());
+            previous = range;
+        }
+        assertEquals(h.queryStream(a, b).findFirst().get(), h.queryIterator(a, b).next());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorEndThrows() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(4).dimensions(2);
+        Iterator<Range> it = h.queryIterator(new long[] { 0, 0 }, new long[] { 15, 15 });
+        assertEquals(Range.create(0, 255), it.next());
+        assertFalse(it.hasNext());
+        it.next();
+    }
+
+    @Test
+    public void testUnionAgainstBruteForce() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(3);
+        Random r = new Random(4);
+        for (int n = 0; n < 20; n++) {
+            List<long[]> as = new ArrayList<>();
+            List<long[]> bs = new ArrayList<>();
+            List<Box> boxes = new ArrayList<>();
+            for (int k = 0; k < 1 + n % 4; k++) {
+                long[] a = new long[3];
+                long[] b = new long[3];
+                for (int i = 0; i < 3; i++) {
+                    a[i] = r.nextInt(32);
+                    b[i] = r.nextInt(32);
+                }
+                as.add(a);
+                bs.add(b);
+                boxes.add(new Box(a, b));
+            }
+            List<Range> expected = exactRanges(h, p -> boxes.stream().anyMatch(box -> box.contains(p)));
+            assertEquals(expected, h.queryUnion(as, bs).toList());
+            Ranges limited = h.queryUnion(as, bs, 2);
+            assertTrue(limited.size() <= 2);
+            for (Range range : expected) {
+                assertTrue(limited.stream().anyMatch(x -> x.low() <= range.low() && range.high() <= x.high()));
+            }
+        }
+    }
+
+    @Test
+    public void testUnionOfNoBoxesIsEmpty() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(2);
+        assertEquals(0, h.queryUnion(new ArrayList<>(), new ArrayList<>()).size());
+    }
+
+    @Test
+    public void testBallAgainstBruteForce() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(3);
+        Random r = new Random(6);
+        for (int n = 0; n < 20; n++) {
+            long[] center = { r.nextInt(32), r.nextInt(32), r.nextInt(32) };
+            double radius = r.nextDouble() * 20;
+            List<Range> expected = exactRanges(h, p -> {
+                double d = 0;
+                for (int i = 0; i < 3; i++) {
+                    d += (p[i] - center[i]) * (p[i] - center[i]);
+                }
+                return d <= radius * radius;
+            });
+            assertEquals(expected, h.queryBall(center, radius).toList());
+            Ranges limited = h.queryBall(center, radius, 3);
+            assertTrue(limited.size() <= 3);
+            for (Range range : expected) {
+                assertTrue(limited.stream().anyMatch(x -> x.low() <= range.low() && range.high() <= x.high()));
+            }
+        }
+    }
+
+    @Test
+    public void testBallOfRadiusZeroIsCenter() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(10).dimensions(2);
+        long index = h.index(300, 700);
+        assertEquals(Arrays.asList(Range.create(index)), h.queryBall(new long[] { 300, 700 }, 0).toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBallNegativeRadiusThrows() {
+        HilbertCurve.small().bits(10).dimensions(2).queryBall(new long[] { 1, 2 }, -1);
+    }
+
+    @Test
+    public void testPolygonAgainstBruteForce() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(2);
+        Random r = new Random(7);
+        for (int n = 0; n < 30; n++) {
+            // vertices off the grid so that no cell is on an edge
+            int vertices = 3 + r.nextInt(8);
+            double[] x = new double[vertices];
+            double[] y = new double[vertices];
+            Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+            for (int i = 0; i < vertices; i++) {
+                x[i] = r.nextInt(70) - 3 + 0.37;
+                y[i] = r.nextInt(70) - 3 + 0.61;
+                if (i == 0) {
+                    path.moveTo(x[i], y[i]);
+                } else {
+                    path.lineTo(x[i], y[i]);
+                }
+            }
+            path.closePath();
+            List<Range> expected = exactRanges(h, p -> path.contains(p[0], p[1]));
+            assertEquals(expected, h.queryPolygon(x, y).toList());
+            Ranges limited = h.queryPolygon(x, y, 2);
+            assertTrue(limited.size() <= 2);
+            for (Range range : expected) {
+                assertTrue(limited.stream().anyMatch(z -> z.low() <= range.low() && range.high() <= z.high()));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPolygonNeedsTwoDimensions() {
+        HilbertCurve.small().bits(6).dimensions(3).queryPolygon(new double[] { 1, 2, 3 }, new double[] { 1, 3, 1 });
+    }
+
+    // the exact ranges of the cells for which inside returns true
+    static List<Range> exactRanges(SmallHilbertCurve h, Predicate<long[]> inside) {
+        List<Range> ranges = new ArrayList<>();
+        long start = -1;
+        for (long index = 0; index <= h.maxIndex(); index++) {
+            boolean in = inside.test(h.point(index));
+            if (in && start == -1) {
+                start = index;
+            } else if (!in && start != -1) {
+                ranges.add(Range.create(start, index - 1));
+                start = -1;
+            }
+        }
+        if (start != -1) {
+            ranges.add(Range.create(start, h.maxIndex()));
+        }
+        return ranges;
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class PerimeterTaskTest {
+
+    @Test
+    public void testMerge() {
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 9 },
+                PerimeterTask.merge(new long[] { 1, 4, 5 }, new long[] { 2, 3, 9 }));
+        assertArrayEquals(new long[] { 1, 2 }, PerimeterTask.merge(new long[] {}, new long[] { 1, 2 }));
+        assertArrayEquals(new long[] { 1, 2 }, PerimeterTask.merge(new long[] { 1, 2 }, new long[] {}));
+    }
+
+    @Test
+    public void testParallelQuerySameAsQuery() {
+        Random r = new Random(2);
+        int[][] configurations = { { 10, 2 }, { 10, 3 }, { 6, 4 }, { 4, 5 } };
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int[] c : configurations) {
+                SmallHilbertCurve h = HilbertCurve.small().bits(c[0]).dimensions(c[1]);
+                int dimensions = c[1];
+                for (int n = 0; n < 20; n++) {
+                    long[] a = new long[dimensions];
+                    long[] b = new long[dimensions];
+                    for (int i = 0; i < dimensions; i++) {
+                        a[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+                        b[i] = (r.nextLong() >>> 1) % (h.maxOrdinate() + 1);
+                    }
+                    List<Range> expected = h.query(a, b).toList();
+                    assertEquals(expected, h.queryParallel(a, b).toList());
+                    assertEquals(expected, h.queryParallel(a, b, 0, pool).toList());
+                    Ranges limited = h.queryParallel(a, b, 4, pool);
+                    assertTrue(limited.size() <= 4);
+                    assertEquals(h.query(a, b, 4).toList(), limited.toList());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
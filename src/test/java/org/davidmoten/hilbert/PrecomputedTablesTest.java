@@ -0,0 +1,119 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class PrecomputedTablesTest {
+
+    @Test
+    public void testMatchesCurve() {
+        int[][] configurations = { { 10, 2 }, { 6, 3 }, { 5, 4 }, { 4, 5 }, { 20, 1 }, { 1, 2 } };
+        for (int[] c : configurations) {
+            SmallHilbertCurve h = HilbertCurve.small().bits(c[0]).dimensions(c[1]);
+            SmallHilbertCurve p = h.precomputed();
+            long[] x = new long[c[1]];
+            long[] scratch = new long[c[1]];
+            for (long index = 0; index <= h.maxIndex(); index++) {
+                long[] point = h.point(index);
+                assertArrayEquals(point, p.point(index));
+                p.point(index, x);
+                assertArrayEquals(point, x);
+                assertEquals(index, p.index(point));
+                assertEquals(index, p.index(point, scratch));
+            }
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(6).dimensions(3);
+        SmallHilbertCurve p = h.precomputed();
+        int count = 500;
+        long[] indexes = new long[count];
+        for (int j = 0; j < count; j++) {
+            indexes[j] = j * 431 % (h.maxIndex() + 1);
+        }
+        long[] points = new long[count * 3];
+        long[] expectedPoints = new long[count * 3];
+        p.points(indexes, points, count);
+        h.points(indexes, expectedPoints, count);
+        assertArrayEquals(expectedPoints, points);
+        long[] indexes2 = new long[count];
+        p.indexes(points, indexes2, count);
+        assertArrayEquals(indexes, indexes2);
+
+        long[][] ordinates = new long[3][count];
+        p.points(indexes, ordinates, count);
+        long[] indexes3 = new long[count];
+        p.indexes(ordinates, indexes3, count);
+        assertArrayEquals(indexes, indexes3);
+        for (int j = 0; j < count; j++) {
+            assertEquals(points[j * 3 + 1], ordinates[1][j]);
+        }
+    }
+
+    @Test
+    public void testQueryUnchanged() {
+        SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(2);
+        long[] a = { 3, 3 };
+        long[] b = { 8, 10 };
+        assertEquals(h.query(a, b).toList(), h.precomputed().query(a, b).toList());
+    }
+
+    @Test
+    public void testConcurrentFirstUse() throws Exception {
+        SmallHilbertCurve h = HilbertCurve.small().bits(9).dimensions(2);
+        SmallHilbertCurve p = h.precomputed();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final long start = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (long index = start; index < start + 1000; index++) {
+                        if (p.index(p.point(index)) != index) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> f : futures) {
+                assertEquals(true, f.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrecomputedOfPrecomputedIsSame() {
+        SmallHilbertCurve p = HilbertCurve.small().bits(10).dimensions(2).precomputed();
+        assertSame(p, p.precomputed());
+    }
+
+    @Test
+    public void testTablesSharedBySameBitsAndDimensions() {
+        SmallHilbertCurve a = HilbertCurve.small().bits(6).dimensions(3);
+        SmallHilbertCurve b = HilbertCurve.small().bits(6).dimensions(3);
+        assertSame(PrecomputedTables.forCurve(a), PrecomputedTables.forCurve(b));
+        assertNotSame(PrecomputedTables.forCurve(a),
+                PrecomputedTables.forCurve(HilbertCurve.small().bits(9).dimensions(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBits() {
+        HilbertCurve.small().bits(7).dimensions(3).precomputed();
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.davidmoten.hilbert;
+
+import static org.davidmoten.hilbert.OrthantDecompositionTest.exactRanges;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.davidmoten.hilbert.Region.Relation;
+import org.junit.Test;
+
+public class RegionTest {
+
+    private static final SmallHilbertCurve h = HilbertCurve.small().bits(5).dimensions(3);
+
+    private static final long[] A = { 2, 3, 4 };
+    private static final long[] B = { 25, 20, 30 };
+    private static final long[] CENTER = { 16, 10, 12 };
+    private static final double RADIUS = 9.5;
+
+    private static boolean inBox(long[] p) {
+        return new Box(A, B).contains(p);
+    }
+
+    private static boolean inBall(long[] p) {
+        double d = 0;
+        for (int i = 0; i < p.length; i++) {
+            d += (p[i] - CENTER[i]) * (p[i] - CENTER[i]);
+        }
+        return d <= RADIUS * RADIUS;
+    }
+
+    @Test
+    public void testBoxSameAsQuery() {
+        assertEquals(h.query(A, B).toList(), h.query(Region.box(A, B)).toList());
+    }
+
+    @Test
+    public void testCombinatorsAgainstBruteForce() {
+        Region box = Region.box(A, B);
+        Region ball = Region.ball(CENTER, RADIUS);
+        check(box.minus(ball), p -> inBox(p) && !inBall(p));
+        check(box.and(ball), p -> inBox(p) && inBall(p));
+        check(box.or(ball), p -> inBox(p) || inBall(p));
+        check(ball.complement(), p -> !inBall(p));
+        check(Region.union(box.minus(ball), ball.minus(box)), p -> inBox(p) != inBall(p));
+        check(Region.intersection(box, ball, ball.complement()), p -> false);
+    }
+
+    @Test
+    public void testPolygonIsPrismInThreeDimensions() {
+        Region triangle = Region.polygon(new double[] { 0.5, 30.5, 0.5 }, new double[] { 0.5, 0.5, 20.5 });
+        // the hypotenuse is 20(x - 0.5) + 30(y - 0.5) = 600 and the third
+        // ordinate is unrestricted
+        check(triangle, p -> p[0] >= 1 && p[1] >= 1 && 20 * p[0] + 30 * p[1] < 625);
+    }
+
+    @Test
+    public void testCustomRegion() {
+        // the half space x + y + z <= 40
+        Region halfSpace = (mins, maxes) -> {
+            if (maxes[0] + maxes[1] + maxes[2] <= 40) {
+                return Relation.INSIDE;
+            } else if (mins[0] + mins[1] + mins[2] > 40) {
+                return Relation.OUTSIDE;
+            } else {
+                return Relation.PARTIAL;
+            }
+        };
+        check(halfSpace, p -> p[0] + p[1] + p[2] <= 40);
+        List<Range> actual = new ArrayList<>();
+        h.queryIterator(halfSpace).forEachRemaining(actual::add);
+        assertEquals(h.query(halfSpace).toList(), actual);
+    }
+
+    @Test
+    public void testMaxDepthCoversRegionWithFewerRanges() {
+        Region ball = Region.ball(CENTER, RADIUS);
+        List<Range> exact = h.query(ball).toList();
+        assertEquals(exact, h.query(ball, 0, h.bits()).toList());
+        int previous = Integer.MAX_VALUE;
+        for (int depth = h.bits(); depth >= 0; depth--) {
+            List<Range> approximate = h.query(ball, 0, depth).toList();
+            assertTrue(approximate.size() <= previous);
+            previous = approximate.size();
+            for (Range range : exact) {
+                assertTrue(approximate.stream().anyMatch(x -> x.low() <= range.low() && range.high() <= x.high()));
+            }
+        }
+        // depth 0 is the whole domain
+        assertEquals(1, previous);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxDepthTooLargeThrows() {
+        h.query(Region.box(A, B), 0, h.bits() + 1);
+    }
+
+    private static void check(Region region, Predicate<long[]> inside) {
+        List<Range> expected = exactRanges(h, inside);
+        assertEquals(expected, h.query(region).toList());
+        Ranges limited = h.query(region, 3);
+        assertTrue(limited.size() <= 3);
+        for (Range range : expected) {
+            assertTrue(limited.stream().anyMatch(x -> x.low() <= range.low() && range.high() <= x.high()));
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SimdKernelTest {
+
+    @Test
+    public void testProcessedPointsMatchScalar() {
+        Random r = new Random(7);
+        int count = 103;
+        for (int dimensions = 2; dimensions <= 10; dimensions++) {
+            for (int bits = 1; bits * dimensions <= 63; bits++) {
+                SmallHilbertCurve h = HilbertCurve.small().bits(bits).dimensions(dimensions);
+                long[][] ordinates = new long[dimensions][count];
+                for (int i = 0; i < dimensions; i++) {
+                    for (int j = 0; j < count; j++) {
+                        ordinates[i][j] = r.nextLong() & ((1L << bits) - 1);
+                    }
+                }
+                long[] indexes = new long[count];
+                int processed = SimdKernel.indexes(bits, ordinates, indexes, count);
+                assertTrue(processed >= 0 && processed <= count);
+                long[] point = new long[dimensions];
+                for (int j = 0; j < processed; j++) {
+                    for (int i = 0; i < dimensions; i++) {
+                        point[i] = ordinates[i][j];
+                    }
+                    assertEquals(h.index(point), indexes[j]);
+                }
+            }
+        }
+    }
+
+}
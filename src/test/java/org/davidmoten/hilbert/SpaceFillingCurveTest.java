@@ -0,0 +1,132 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpaceFillingCurveTest {
+
+    @Test
+    public void testMatchesHilbertCurve() {
+        Random r = new Random(1);
+        // precomputed small, small, medium and wide
+        int[][] configurations = { { 5, 2 }, { 8, 2 }, { 10, 3 }, { 21, 3 }, { 16, 4 }, { 32, 4 }, { 63, 2 },
+                { 16, 16 }, { 4, 128 } };
+        for (int[] c : configurations) {
+            int bits = c[0];
+            int dimensions = c[1];
+            SpaceFillingCurve s = HilbertCurve.auto().bits(bits).dimensions(dimensions);
+            HilbertCurve h = HilbertCurve.bits(bits).dimensions(dimensions);
+            assertEquals(bits, s.bits());
+            assertEquals(dimensions, s.dimensions());
+            assertEquals(h.words(), s.words());
+            assertEquals((1L << bits) - 1, s.maxOrdinate());
+            assertEquals(BigInteger.ONE.shiftLeft(bits * dimensions).subtract(BigInteger.ONE),
+                    s.maxIndex().toBigInteger());
+            int count = 20;
+            long[] points = new long[count * dimensions];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = r.nextLong() >>> (64 - bits);
+            }
+            long[] indexes = new long[count * s.words()];
+            s.indexes(points, indexes, count);
+            long[] scratch = new long[dimensions];
+            long[] words = new long[s.words()];
+            long[] x = new long[dimensions];
+            for (int j = 0; j < count; j++) {
+                long[] point = new long[dimensions];
+                System.arraycopy(points, j * dimensions, point, 0, dimensions);
+                BigInteger expected = h.index(point);
+                WideIndex index = s.index(point);
+                assertEquals(s.words(), index.size());
+                assertEquals(expected, index.toBigInteger());
+                s.index(point, scratch, words);
+                assertArrayEquals(index.toWords(), words);
+                for (int w = 0; w < s.words(); w++) {
+                    assertEquals(words[w], indexes[j * s.words() + w]);
+                }
+                s.point(words, x);
+                assertArrayEquals(point, x);
+                assertArrayEquals(point, s.point(index));
+            }
+            long[] points2 = new long[points.length];
+            s.points(indexes, points2, count);
+            assertArrayEquals(points, points2);
+        }
+    }
+
+    @Test
+    public void testImplementationChoice() {
+        assertEquals("Small", HilbertCurve.auto().bits(21).dimensions(3).getClass().getSimpleName());
+        // an index of exactly 64 bits is one word
+        SpaceFillingCurve s = HilbertCurve.auto().bits(16).dimensions(4);
+        assertEquals("Wide", s.getClass().getSimpleName());
+        assertEquals(1, s.words());
+        assertEquals("Medium", HilbertCurve.auto().bits(13).dimensions(5).getClass().getSimpleName());
+        assertEquals("Medium", HilbertCurve.auto().bits(32).dimensions(4).getClass().getSimpleName());
+        assertEquals("Wide", HilbertCurve.auto().bits(43).dimensions(3).getClass().getSimpleName());
+    }
+
+    @Test
+    public void testQuerySmall() {
+        SpaceFillingCurve s = HilbertCurve.auto().bits(10).dimensions(2);
+        SmallHilbertCurve c = HilbertCurve.small().bits(10).dimensions(2);
+        long[] a = { 3, 100 };
+        long[] b = { 250, 120 };
+        checkSameRanges(c.query(a, b).toList(), s.query(a, b));
+        checkSameRanges(c.query(a, b, 3).toList(), s.query(a, b, 3));
+    }
+
+    @Test
+    public void testQueryMedium() {
+        SpaceFillingCurve s = HilbertCurve.auto().bits(20).dimensions(4);
+        MediumHilbertCurve c = HilbertCurve.medium().bits(20).dimensions(4);
+        long[] a = { 1000, 2000, 3000, 4000 };
+        long[] b = { 1003, 2002, 3004, 4001 };
+        List<Range128> expected = c.query(a, b, 5);
+        List<WideRange> ranges = s.query(a, b, 5);
+        assertEquals(expected.size(), ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            assertEquals(expected.get(i).low().toBigInteger(), ranges.get(i).low().toBigInteger());
+            assertEquals(expected.get(i).high().toBigInteger(), ranges.get(i).high().toBigInteger());
+        }
+    }
+
+    @Test
+    public void testQueryWide() {
+        SpaceFillingCurve s = HilbertCurve.auto().bits(10).dimensions(13);
+        HilbertCurve c = HilbertCurve.bits(10).dimensions(13);
+        long[] a = new long[13];
+        long[] b = new long[13];
+        b[0] = 3;
+        b[5] = 2;
+        assertEquals(c.query(a, b), s.query(a, b));
+        assertEquals(c.query(a, b, 2), s.query(a, b, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPointWrongNumberOfWords() {
+        SpaceFillingCurve s = HilbertCurve.auto().bits(20).dimensions(4);
+        s.point(WideIndex.create(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexesCountTooLarge() {
+        SpaceFillingCurve s = HilbertCurve.auto().bits(20).dimensions(4);
+        s.indexes(new long[8], new long[4], 3);
+    }
+
+    private static void checkSameRanges(List<Range> expected, List<WideRange> ranges) {
+        assertEquals(expected.size(), ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            assertEquals(WideRange.create(WideIndex.create(expected.get(i).low()),
+                    WideIndex.create(expected.get(i).high())), ranges.get(i));
+        }
+    }
+
+}
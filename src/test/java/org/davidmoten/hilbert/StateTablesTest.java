@@ -0,0 +1,64 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StateTablesTest {
+
+    @Test
+    public void testTablesOnlyAvailableFor2And3Dimensions() {
+        assertNull(StateTables.forDimensions(1));
+        assertNull(StateTables.forDimensions(4));
+    }
+
+    @Test
+    public void testTwoDimensionsExhaustiveMatchesSkilling() {
+        for (int bits = 1; bits <= 6; bits++) {
+            HilbertCurve c = HilbertCurve.bits(bits).dimensions(2);
+            SmallHilbertCurve small = HilbertCurve.small().bits(bits).dimensions(2);
+            for (long i = 0; i <= small.maxOrdinate(); i++) {
+                for (long j = 0; j <= small.maxOrdinate(); j++) {
+                    long index = small.index(i, j);
+                    assertEquals(c.index(i, j).longValue(), index);
+                    assertArrayEquals(new long[] { i, j }, small.point(index));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTwoDimensionsRandomMatchesSkilling() {
+        checkRandom(2, 31);
+    }
+
+    @Test
+    public void testThreeDimensionsRandomMatchesSkilling() {
+        checkRandom(3, 21);
+    }
+
+    private static void checkRandom(int dimensions, int maxBits) {
+        Random r = new Random(123);
+        long[] x = new long[dimensions];
+        for (int bits = 1; bits <= maxBits; bits++) {
+            HilbertCurve c = HilbertCurve.bits(bits).dimensions(dimensions);
+            SmallHilbertCurve small = HilbertCurve.small().bits(bits).dimensions(dimensions);
+            for (int n = 0; n < 1000; n++) {
+                long[] point = new long[dimensions];
+                for (int i = 0; i < dimensions; i++) {
+                    point[i] = r.nextLong() & ((1L << bits) - 1);
+                }
+                long index = small.index(point);
+                assertEquals(c.index(point).longValue(), index);
+                assertArrayEquals(point, small.point(index));
+                small.point(index, x);
+                assertArrayEquals(point, x);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TinyHilbertCurveTest {
+
+    @Test
+    public void testMatchesSmallHilbertCurve() {
+        for (int dimensions = 2; dimensions <= 7; dimensions++) {
+            for (int bits = 1; bits * dimensions <= 31; bits++) {
+                TinyHilbertCurve t = HilbertCurve.tiny().bits(bits).dimensions(dimensions);
+                SmallHilbertCurve s = HilbertCurve.small().bits(bits).dimensions(dimensions);
+                assertEquals(s.maxIndex(), t.maxIndex());
+                assertEquals(s.maxOrdinate(), t.maxOrdinate());
+                int[] x = new int[dimensions];
+                int[] scratch = new int[dimensions];
+                long step = Math.max(1, s.maxIndex() / 300);
+                for (long index = 0; index <= s.maxIndex(); index += step) {
+                    int[] point = toInts(s.point(index));
+                    assertArrayEquals(point, t.point((int) index));
+                    t.point((int) index, x);
+                    assertArrayEquals(point, x);
+                    assertEquals(index, t.index(point));
+                    assertEquals(index, t.index(point, scratch));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        for (int dimensions = 2; dimensions <= 4; dimensions++) {
+            int bits = 31 / dimensions;
+            TinyHilbertCurve t = HilbertCurve.tiny().bits(bits).dimensions(dimensions);
+            int count = 100;
+            int[] indexes = new int[count];
+            for (int j = 0; j < count; j++) {
+                indexes[j] = (int) ((long) t.maxIndex() * j / count);
+            }
+            int[] points = new int[count * dimensions];
+            t.points(indexes, points, count);
+            int[] indexes2 = new int[count];
+            t.indexes(points, indexes2, count);
+            assertArrayEquals(indexes, indexes2);
+            for (int j = 0; j < count; j++) {
+                int[] point = new int[dimensions];
+                System.arraycopy(points, j * dimensions, point, 0, dimensions);
+                assertArrayEquals(t.point(indexes[j]), point);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryMatchesSmallHilbertCurve() {
+        TinyHilbertCurve t = HilbertCurve.tiny().bits(5).dimensions(2);
+        SmallHilbertCurve s = HilbertCurve.small().bits(5).dimensions(2);
+        for (int maxRanges = 0; maxRanges <= 3; maxRanges++) {
+            List<IntRange> ranges = t.query(new int[] { 3, 3 }, new int[] { 8, 10 }, maxRanges);
+            List<Range> expected = s.query(new long[] { 3, 3 }, new long[] { 8, 10 }, maxRanges).toList();
+            assertEquals(expected.size(), ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                assertEquals(expected.get(i).low(), ranges.get(i).low());
+                assertEquals(expected.get(i).high(), ranges.get(i).high());
+            }
+        }
+        assertEquals(t.query(new int[] { 3, 3 }, new int[] { 8, 10 }, 0),
+                t.query(new int[] { 3, 3 }, new int[] { 8, 10 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBits() {
+        HilbertCurve.tiny().bits(16).dimensions(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOneDimension() {
+        HilbertCurve.tiny().bits(8).dimensions(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPointWrongLength() {
+        HilbertCurve.tiny().bits(12).dimensions(2).point(5, new int[3]);
+    }
+
+    private static int[] toInts(long[] a) {
+        int[] x = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            x[i] = (int) a[i];
+        }
+        return x;
+    }
+
+}
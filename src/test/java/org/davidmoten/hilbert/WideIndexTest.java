@@ -0,0 +1,67 @@
+package org.davidmoten.hilbert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+public class WideIndexTest {
+
+    @Test
+    public void testOrderingIsUnsigned() {
+        WideIndex a = WideIndex.create(0, -1L);
+        WideIndex b = WideIndex.create(1, 0);
+        WideIndex c = WideIndex.create(-1L, 0);
+        assertTrue(a.compareTo(b) < 0);
+        assertTrue(b.compareTo(c) < 0);
+        assertTrue(c.compareTo(a) > 0);
+        assertEquals(0, a.compareTo(WideIndex.create(0, -1L)));
+    }
+
+    @Test
+    public void testLeadingZeroWordsNotSignificant() {
+        WideIndex a = WideIndex.create(0, 0, 5);
+        WideIndex b = WideIndex.create(5);
+        assertEquals(0, a.compareTo(b));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, WideIndex.create(1, 0, 5));
+        assertTrue(WideIndex.create(1, 0).compareTo(WideIndex.create(-1L)) > 0);
+    }
+
+    @Test
+    public void testToBigInteger() {
+        BigInteger expected = BigInteger.ONE.shiftLeft(130).add(BigInteger.ONE.shiftLeft(64)).add(BigInteger.TEN);
+        assertEquals(expected, WideIndex.create(4, 1, 10).toBigInteger());
+        assertEquals(expected.toString(), WideIndex.create(4, 1, 10).toString());
+        assertEquals(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE), WideIndex.create(-1L).toBigInteger());
+    }
+
+    @Test
+    public void testIsImmutable() {
+        long[] words = { 1, 2 };
+        WideIndex a = WideIndex.create(words);
+        words[0] = 3;
+        assertEquals(1, a.word(0));
+        a.toWords()[1] = 7;
+        assertArrayEquals(new long[] { 1, 2 }, a.toWords());
+        assertEquals(2, a.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() {
+        WideIndex.create();
+    }
+
+    @Test
+    public void testMinus() {
+        assertEquals(WideIndex.create(0, -1L), WideIndex.create(1, 0).minus(WideIndex.create(0, 1)));
+        assertEquals(WideIndex.create(1, 5, 0), WideIndex.create(2, 4, 3).minus(WideIndex.create(0, -1L, 3)));
+        assertEquals(WideIndex.create(0, 0), WideIndex.create(7, 7).minus(WideIndex.create(7, 7)));
+    }
+
+}